@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# Time to the first successful GET /tasks, from process start, for the builds that exist:
+#   jvm     target/ClaytonCodingAssessment-*.jar       mvn package
+#   cds     target/cds/ + target/cds/app.jsa            mvn -Pcds package
+#   native  target/ClaytonCodingAssessment              mvn -Pnative native:compile
+# Usage: scripts/startup-benchmark.sh [runs] [modes...]   e.g. scripts/startup-benchmark.sh 10 jvm cds
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+shift || true
+MODES=(${@:-jvm cds native})
+PORT=${PORT:-18080}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+URL="http://localhost:$PORT/tasks"
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Prints the command line of a mode, or nothing if its build is missing.
+command_of() {
+    case "$1" in
+        jvm)
+            local jar
+            jar=$(ls target/ClaytonCodingAssessment-*.jar 2>/dev/null | grep -v -e '-sources' -e '-javadoc' | head -1 || true)
+            [[ -n "$jar" ]] && echo "java -jar $jar" ;;
+        cds)
+            local jar
+            jar=$(ls target/cds/ClaytonCodingAssessment-*.jar 2>/dev/null | head -1 || true)
+            # Run from target/cds, as the archive records the classpath of the training run.
+            [[ -n "$jar" && -f target/cds/app.jsa ]] && echo "cd target/cds && exec java -XX:SharedArchiveFile=app.jsa -jar $(basename "$jar")" ;;
+        native)
+            [[ -x target/ClaytonCodingAssessment ]] && echo "target/ClaytonCodingAssessment" ;;
+        *)
+            echo "Unknown mode $1, expected jvm, cds or native." >&2
+            exit 1 ;;
+    esac
+    return 0
+}
+
+# Starts the build, polls GET /tasks until it answers 200 and prints the milliseconds that took.
+time_to_first_response() {
+    local start pid elapsed
+    start=$(now_ms)
+    bash -c "$1 --server.port=$PORT" > "target/startup-benchmark-$2.log" 2>&1 &
+    pid=$!
+    until [[ "$(curl -s -o /dev/null -w '%{http_code}' "$URL" || true)" == "200" ]]; do
+        if ! kill -0 "$pid" 2>/dev/null || (( $(now_ms) - start > TIMEOUT_SECONDS * 1000 )); then
+            echo "The $2 build did not answer GET /tasks, see target/startup-benchmark-$2.log." >&2
+            kill "$pid" 2>/dev/null || true
+            return 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( $(now_ms) - start ))
+    pkill -P "$pid" 2>/dev/null || true
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+printf '%-8s %6s %8s %8s %8s\n' mode runs min_ms median_ms max_ms
+for mode in "${MODES[@]}"; do
+    cmd=$(command_of "$mode")
+    if [[ -z "$cmd" ]]; then
+        echo "Skipping $mode: not built." >&2
+        continue
+    fi
+    times=()
+    for ((i = 0; i < RUNS; i++)); do
+        times+=("$(time_to_first_response "$cmd" "$mode")")
+    done
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-8s %6d %8d %8d %8d\n' "$mode" "$RUNS" "${sorted[0]}" "${sorted[$((RUNS / 2))]}" "${sorted[$((RUNS - 1))]}"
+done
@@ -0,0 +1,25 @@
+package com.example.claytoncodingassessment.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status.contains runs for every status filter passed to the TaskReport listing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusBenchmark {
+
+    @Param({"SUCCESS", "FAILURE", "UNKNOWN"})
+    private String status;
+
+    @Benchmark
+    public boolean contains() {
+        return Status.contains(status);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds the StepReport sets the benchmarks run against.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2023, 5, 9, 0, 0);
+    private static final Status[] STATUSES = Status.values();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates count StepReports with a fixed seed, so every fork sorts and aggregates the same data.
+     * Start times and execution times are shuffled and roughly a third of the steps are RUNNING without a time.
+     */
+    static Set<TaskStepExecutionReport> stepReports(int count) {
+        Random random = new Random(42);
+        Set<TaskStepExecutionReport> stepReports = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            Status status = STATUSES[random.nextInt(STATUSES.length)];
+            stepReports.add(TaskStepExecutionReport.builder()
+                    .id(i + 1L)
+                    .stepName("step" + i)
+                    .startDateTime(EPOCH.plusSeconds(random.nextInt(count * 10)))
+                    .executionTimeSeconds(status == Status.RUNNING ? null : (long) random.nextInt(3600))
+                    .status(status)
+                    .build());
+        }
+        return stepReports;
+    }
+}
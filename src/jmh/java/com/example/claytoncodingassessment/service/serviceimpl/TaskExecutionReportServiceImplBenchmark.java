@@ -0,0 +1,49 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Full recompute of a TaskReport's aggregates over its StepReports.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskExecutionReportServiceImplBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int stepCount;
+
+    private TaskExecutionReportServiceImpl taskExecutionReportService;
+    private TaskExecutionReport taskExecutionReport;
+
+    @Setup
+    public void setUp() {
+        taskExecutionReportService = new TaskExecutionReportServiceImpl();
+        // stubOnly keeps the mock from recording every save call for the length of the run.
+        ReflectionTestUtils.setField(taskExecutionReportService, "taskExecutionReportRepo",
+                mock(TaskExecutionReportRepo.class, withSettings().stubOnly()));
+        // Drops the change events, which would otherwise go to the read model and the event stream.
+        ReflectionTestUtils.setField(taskExecutionReportService, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        taskExecutionReport = TaskExecutionReport.builder()
+                .taskStepExecutionReports(BenchmarkData.stepReports(stepCount))
+                .build();
+    }
+
+    @Benchmark
+    public TaskExecutionReport updateAttributes() {
+        taskExecutionReportService.updateAttributes(taskExecutionReport);
+        return taskExecutionReport;
+    }
+}
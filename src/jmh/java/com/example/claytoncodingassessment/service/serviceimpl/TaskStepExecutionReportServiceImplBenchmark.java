@@ -0,0 +1,82 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * StepReport status handling and the comparator based StepReport listings.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskStepExecutionReportServiceImplBenchmark {
+
+    @State(Scope.Thread)
+    public static class StepState {
+
+        @Param({"SUCCESS", "RUNNING"})
+        private Status status;
+
+        private final TaskStepExecutionReportServiceImpl taskStepExecutionReportService = new TaskStepExecutionReportServiceImpl();
+        private TaskStepExecutionReport taskStepExecutionReport;
+
+        @Setup
+        public void setUp() {
+            taskStepExecutionReport = TaskStepExecutionReport.builder()
+                    .startDateTime(LocalDateTime.now().minusMinutes(5))
+                    .status(status)
+                    .build();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SortState {
+
+        @Param({"10", "100", "1000", "10000", "100000"})
+        private int stepCount;
+
+        private final TaskStepExecutionReportServiceImpl taskStepExecutionReportService = new TaskStepExecutionReportServiceImpl();
+
+        @Setup
+        public void setUp() {
+            TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
+                    .id(1L)
+                    .taskStepExecutionReports(BenchmarkData.stepReports(stepCount))
+                    .build();
+            TaskExecutionReportService taskExecutionReportService = mock(TaskExecutionReportService.class, withSettings().stubOnly());
+            when(taskExecutionReportService.findTaskReportById(1L)).thenReturn(Optional.of(taskExecutionReport));
+            ReflectionTestUtils.setField(taskStepExecutionReportService, "taskExecutionReportService", taskExecutionReportService);
+        }
+    }
+
+    @Benchmark
+    public TaskStepExecutionReport checkForSuccess(StepState state) {
+        state.taskStepExecutionReportService.checkForSuccess(state.taskStepExecutionReport);
+        return state.taskStepExecutionReport;
+    }
+
+    @Benchmark
+    public List<TaskStepExecutionReport> sortedByStartDateTime(SortState state) {
+        return state.taskStepExecutionReportService.getAllTaskStepExecutionReportsSortedByStartDateTime(1L).getValue();
+    }
+
+    @Benchmark
+    public List<TaskStepExecutionReport> sortedByExeTime(SortState state) {
+        return state.taskStepExecutionReportService.getAllTaskStepExecutionReportsSortedByExeTime(1L).getValue();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.claytoncodingassessment.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * In-process Caffeine caches in front of the Task and TaskReport lookups.
+ * Size and TTL come from spring.cache.caffeine.spec; hit, miss and eviction counts are published under /actuator/metrics/cache.*.
+ * The cache advice runs outside the transaction advice, so an eviction only happens once the write has committed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    public static final String TASKS = "tasks";
+    public static final String TASK_REPORTS = "taskReports";
+}
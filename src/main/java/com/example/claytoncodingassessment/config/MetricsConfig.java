@@ -0,0 +1,54 @@
+package com.example.claytoncodingassessment.config;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.repository.QueryCounter;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application metrics on top of the actuator defaults, published under /actuator/metrics and /actuator/prometheus.
+ * Controllers are timed by http.server.requests (tagged by uri, method, status and outcome) and repositories by
+ * spring.data.repository.invocations; this adds the service timers, the RUNNING gauges and the per-request query count.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "service.calls";
+
+    /**
+     * Backs the class level @Timed(SERVICE_TIMER) on the service implementations, tagged by class, method and exception.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+    }
+
+    /**
+     * Counts of RUNNING TaskReports and StepReports, read from the database on every scrape.
+     */
+    @Bean
+    public MeterBinder runningReportsMetrics(TaskExecutionReportRepo taskExecutionReportRepo,
+                                             TaskStepExecutionReportRepo taskStepExecutionReportRepo) {
+        return meterRegistry -> {
+            Gauge.builder("task.reports.running", taskExecutionReportRepo, repo -> repo.countByStatus(Status.RUNNING))
+                    .description("TaskReports with status RUNNING")
+                    .register(meterRegistry);
+            Gauge.builder("task.step.reports.running", taskStepExecutionReportRepo, repo -> repo.countByStatus(Status.RUNNING))
+                    .description("StepReports with status RUNNING")
+                    .register(meterRegistry);
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.claytoncodingassessment.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query caches, held in Caffeine through JCache.
+ * Every region is created up front with its own maximum size, read from second-level-cache.&lt;region&gt;.maximum-size;
+ * the update timestamps region is left unbounded, as evicting a timestamp could let a stale query result through.
+ * Each application context gets its own CacheManager, so contexts on different databases never share entries.
+ * Hit and miss counts per region are published by Hibernate's statistics under /actuator/metrics/hibernate.*, and
+ * size, gets and evictions by Caffeine under /actuator/metrics/cache.* with the tag cache.manager=hibernate.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String TASKS = "task";
+    public static final String TASK_REPORTS = "taskReport";
+    public static final String TASK_REPORT_STEP_REPORTS = "taskReport.taskStepExecutionReports";
+    public static final String STEP_REPORTS = "stepReport";
+    public static final String REPORT_SUMMARIES = "reportSummary";
+
+    private static final List<String> BOUNDED_REGIONS = List.of(TASKS, TASK_REPORTS, TASK_REPORT_STEP_REPORTS, STEP_REPORTS,
+            REPORT_SUMMARIES, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(Environment environment) {
+        CacheManager cacheManager = new CacheManagerImpl(new CaffeineCachingProvider(), false,
+                URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader(), new Properties());
+        for (String region : BOUNDED_REGIONS) {
+            long maximumSize = environment.getProperty("second-level-cache." + region + ".maximum-size", Long.class, DEFAULT_MAXIMUM_SIZE);
+            cacheManager.createCache(region, configuration(OptionalLong.of(maximumSize)));
+        }
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, configuration(OptionalLong.empty()));
+        return cacheManager;
+    }
+
+    /**
+     * Hands the CacheManager to Hibernate, which then fails on startup if an entity names a region created nowhere above.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager) {
+        return meterRegistry -> {
+            for (String region : secondLevelCacheManager.getCacheNames()) {
+                Cache<?, ?> cache = secondLevelCacheManager.getCache(region).unwrap(Cache.class);
+                CaffeineCacheMetrics.monitor(meterRegistry, cache, region, Tags.of("cache.manager", "hibernate", "name", region));
+            }
+        };
+    }
+
+    /**
+     * Entries are stored by reference: Hibernate already caches a disassembled copy of each entity, not the entity itself.
+     */
+    private static CaffeineConfiguration<Object, Object> configuration(OptionalLong maximumSize) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize);
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.claytoncodingassessment.config;
+
+import com.example.claytoncodingassessment.model.AggregateConsistencyReport;
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.LeaderboardEntry;
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.StepLatency;
+import com.example.claytoncodingassessment.model.entities.*;
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import com.example.claytoncodingassessment.model.views.TaskReportSummary;
+import com.example.claytoncodingassessment.model.views.TaskReportView;
+import com.example.claytoncodingassessment.model.views.TaskView;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * What the startup-time builds need from the application: the reflection hints of the GraalVM native image (mvn -Pnative
+ * native:compile) and the exit after startup that lets the cds profile record its class data sharing archive.
+ */
+@Configuration
+@ImportRuntimeHints(StartupConfig.NativeHints.class)
+public class StartupConfig {
+
+    /**
+     * Closes the application as soon as it is ready to serve, so the JVM exits normally and writes the archive requested
+     * with -XX:ArchiveClassesAtExit. Only the cds profile's training run sets startup.exit-when-ready.
+     */
+    @Bean
+    @ConditionalOnProperty("startup.exit-when-ready")
+    public ApplicationListener<ApplicationReadyEvent> exitWhenReady() {
+        return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+
+    /**
+     * Spring AOT already covers the beans, the repositories and the managed entity classes. This adds what is only
+     * reached by reflection at runtime: the generator Hibernate instantiates by class name, the JSON bodies behind the
+     * ServiceResult and ResponseEntity wildcards, and every declared field and method of the entities, so the Lombok
+     * accessors and the getters carrying the Jackson back and managed references keep their annotations.
+     */
+    static class NativeHints implements RuntimeHintsRegistrar {
+
+        static final List<Class<?>> ENTITIES = List.of(Task.class, TaskExecutionReport.class, TaskStepExecutionReport.class,
+                ReportSummary.class, IdempotencyRecord.class);
+        static final List<Class<?>> JSON_BODIES = List.of(Task.class, TaskExecutionReport.class, TaskStepExecutionReport.class,
+                TaskView.class, TaskReportView.class, TaskReportSummary.class, StepReportView.class, CursorPage.class,
+                LeaderboardEntry.class, StepLatency.class, AggregateConsistencyReport.class, ReportEvent.class);
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(AssignableSequenceGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+            for (Class<?> entity : ENTITIES) {
+                hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+            BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+            bindingRegistrar.registerReflectionHints(hints.reflection(), JSON_BODIES.toArray(Class<?>[]::new));
+        }
+    }
+}
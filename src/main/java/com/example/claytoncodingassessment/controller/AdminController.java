@@ -0,0 +1,112 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.AggregateConsistencyReport;
+import com.example.claytoncodingassessment.model.ServiceResult;
+import com.example.claytoncodingassessment.service.ReportSummaryService;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Tag(name ="Admin", description = "Maintenance operations.")
+public class AdminController {
+
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+
+    /**
+     * Check the step aggregates of a TaskReport against a full recompute.
+     *
+     * @param taskReportId
+     * @return
+     */
+    @Operation(summary = "Check the step aggregates of a TaskReport.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = AggregateConsistencyReport.class),
+                            examples = {
+                                    @ExampleObject("""
+                                            {
+                                            	"taskReportId": 1,
+                                            	"consistent": true,
+                                            	"repaired": false,
+                                            	"stored": {
+                                            		"stepCount": 2,
+                                            		"runningStepCount": 1,
+                                            		"successStepCount": 1,
+                                            		"failureStepCount": 0,
+                                            		"stepExecutionTimeSeconds": 99,
+                                            		"stepExecutionTimeMicros": 99000412
+                                            	},
+                                            	"recomputed": {
+                                            		"stepCount": 2,
+                                            		"runningStepCount": 1,
+                                            		"successStepCount": 1,
+                                            		"failureStepCount": 0,
+                                            		"stepExecutionTimeSeconds": 99,
+                                            		"stepExecutionTimeMicros": 99000412
+                                            	}
+                                            }
+                                            """)
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "404", description = "Not Found.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            examples = {
+                                    @ExampleObject("Non-existent taskReportId passed.")
+                            }
+                    )
+            })
+    })
+    @GetMapping("/admin/taskReports/{taskReportId}/consistency")
+    public ServiceResult<AggregateConsistencyReport> checkAggregateConsistency(@PathVariable Long taskReportId) {
+        return taskExecutionReportService.checkAggregateConsistency(taskReportId, false);
+    }
+
+    /**
+     * Check the step aggregates of a TaskReport and overwrite them with the recomputed values if they differ.
+     *
+     * @param taskReportId
+     * @return
+     */
+    @Operation(summary = "Repair the step aggregates of a TaskReport.")
+    @PostMapping("/admin/taskReports/{taskReportId}/consistency")
+    public ServiceResult<AggregateConsistencyReport> repairAggregateConsistency(@PathVariable Long taskReportId) {
+        return taskExecutionReportService.checkAggregateConsistency(taskReportId, true);
+    }
+
+    /**
+     * Rebuild the report_summary read model from the TaskReports, to backfill it or to recover from drift.
+     *
+     * @return
+     */
+    @Operation(summary = "Rebuild the TaskReport summaries.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = {
+                                    @ExampleObject("Rebuilt 42 report summaries.")
+                            }
+                    )
+            })
+    })
+    @PostMapping("/admin/reportSummaries/rebuild")
+    public ServiceResult<String> rebuildReportSummaries() {
+        return ServiceResult.ok("Rebuilt " + reportSummaryService.rebuildReportSummaries() + " report summaries.");
+    }
+}
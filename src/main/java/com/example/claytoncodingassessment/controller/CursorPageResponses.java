@@ -0,0 +1,26 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.CursorPage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Returns the items of a page as the body and the cursor of the following page, if any, as a header,
+ * so list endpoints keep returning plain JSON arrays.
+ */
+final class CursorPageResponses {
+
+    private CursorPageResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add(CursorPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.entities.IdempotencyRecord;
+import com.example.claytoncodingassessment.service.serviceimpl.IdempotencyKeys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Makes StepReport creates and updates sent with an Idempotency-Key header safe to retry.
+ * The first request with a key runs as usual and its successful response is stored; a retry with the same key, method
+ * and path gets that response replayed with Idempotent-Replayed: true, without reaching the controller or the database.
+ * A retry that arrives while the first request is still running is refused with 409, and a failed request is not stored,
+ * so it can be retried.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(IDEMPOTENCY_KEY) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            return !PATH_MATCHER.match("/tasks/*/taskReports/*/stepReports", path)
+                    && !PATH_MATCHER.match("/tasks/*/taskReports/*/stepReports/batch", path);
+        }
+        return !HttpMethod.PUT.matches(request.getMethod()) || !PATH_MATCHER.match("/tasks/*/taskReports/*/stepReports/*", path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeText(response, HttpStatus.BAD_REQUEST.value(), "Invalid Idempotency-Key passed.");
+            return;
+        }
+        String requestKey = request.getMethod() + " " + request.getRequestURI() + " " + key;
+        Optional<IdempotencyRecord> stored = idempotencyKeys.find(requestKey);
+        if (stored.isPresent()) {
+            replay(response, stored.get());
+            return;
+        }
+        if (!idempotencyKeys.begin(requestKey)) {
+            writeText(response, HttpStatus.CONFLICT.value(), "A request with this Idempotency-Key is still in progress.");
+            return;
+        }
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, cachingResponse);
+            if (HttpStatus.valueOf(cachingResponse.getStatus()).is2xxSuccessful()) {
+                idempotencyKeys.complete(IdempotencyRecord.builder()
+                        .requestKey(requestKey)
+                        .status(cachingResponse.getStatus())
+                        .contentType(cachingResponse.getContentType())
+                        .body(new String(cachingResponse.getContentAsByteArray(), StandardCharsets.UTF_8))
+                        .build());
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyKeys.abandon(requestKey);
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyRecord record) throws IOException {
+        response.setStatus(record.getStatus());
+        response.setHeader(IDEMPOTENT_REPLAYED, "true");
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        response.getOutputStream().write(record.getBody().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeText(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import com.example.claytoncodingassessment.service.serviceimpl.ReportEventBroadcaster;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@Tag(name ="ReportEvent", description = "Live TaskReport and StepReport changes as Server-Sent Events.")
+public class ReportEventController {
+
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private ReportEventBroadcaster reportEventBroadcaster;
+
+    /**
+     * Stream the StepReport creates, updates and deletes and the status changes of one TaskReport.
+     * Each event is named after its type and carries the ReportEvent as JSON; the stream ends after the TaskReport's delete.
+     *
+     * @param taskId
+     * @param taskReportId
+     * @return
+     */
+    @Operation(summary = "Stream the changes of a specific TaskReport.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            examples = {
+                                    @ExampleObject("""
+                                            id:1
+                                            event:STEP_CREATED
+                                            data:{"type":"STEP_CREATED","taskReportId":1,"stepReport":{"id":1,"stepName":"step1","startDateTime":"2023-05-09T23:55:33.10757","endDateTime":null,"executionTimeSeconds":null,"executionTimeMicros":null,"status":"RUNNING","errorMessage":null},"taskReportStatus":null}
+
+                                            id:2
+                                            event:STATUS_CHANGED
+                                            data:{"type":"STATUS_CHANGED","taskReportId":1,"stepReport":null,"taskReportStatus":"RUNNING"}
+                                            """)
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "404", description = "Not Found.")
+    })
+    @GetMapping(value = "/tasks/{taskId}/taskReports/{taskReportId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getTaskExecutionReportEvents(@PathVariable Long taskId, @PathVariable Long taskReportId) {
+        if (!taskExecutionReportService.getTaskExecutionReport(taskId, taskReportId).isSuccess()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(reportEventBroadcaster.subscribe(taskReportId));
+    }
+
+    /**
+     * Stream the changes of every TaskReport, optionally only events of the given types
+     * and only those about a StepReport or TaskReport with the given status.
+     *
+     * @param type
+     * @param status
+     * @return
+     */
+    @Operation(summary = "Stream the changes of all TaskReports.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            examples = {
+                                    @ExampleObject("""
+                                            id:7
+                                            event:STATUS_CHANGED
+                                            data:{"type":"STATUS_CHANGED","taskReportId":3,"stepReport":null,"taskReportStatus":"FAILURE"}
+                                            """)
+                            }
+                    )
+            })
+    })
+    @GetMapping(value = "/taskReports/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter getAllTaskExecutionReportEvents(@RequestParam Optional<List<ReportEvent.Type>> type,
+                                                      @RequestParam Optional<Status> status) {
+        return reportEventBroadcaster.subscribe(event -> type.map(types -> types.contains(event.getType())).orElse(true)
+                && status.map(s -> s == event.subjectStatus()).orElse(true));
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.ServiceResult;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Central mapping from service outcomes to HTTP responses.
+ * Controllers return the ServiceResult of the service call; its outcome becomes the status code and
+ * the body is the value on success or the message otherwise. Text bodies are sent as text/plain, as before.
+ */
+@RestControllerAdvice
+public class ServiceResultAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return ServiceResult.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof ServiceResult<?> result)) {
+            return body;
+        }
+        response.setStatusCode(statusOf(result.getOutcome()));
+        Object payload = result.isSuccess() ? result.getValue() : result.getMessage();
+        if (payload instanceof String text) {
+            // The converter was picked for ServiceResult and would quote the text as JSON, so write it here instead.
+            response.getHeaders().setContentType(TEXT_PLAIN_UTF8);
+            try {
+                response.getBody().write(text.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }
+        return payload;
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> invalidCursor(InvalidCursorException e) {
+        return new ResponseEntity<String>(e.getMessage(),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    private static HttpStatus statusOf(ServiceResult.Outcome outcome) {
+        return switch (outcome) {
+            case OK, IGNORED -> HttpStatus.OK;
+            case CREATED -> HttpStatus.CREATED;
+            case ACCEPTED -> HttpStatus.ACCEPTED;
+            case INVALID -> HttpStatus.BAD_REQUEST;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case CONFLICT -> HttpStatus.BAD_REQUEST;     // Kept at 400, which clients already handle for a duplicate TaskReport.
+            case UNAVAILABLE -> HttpStatus.SERVICE_UNAVAILABLE;
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.claytoncodingassessment.controller;
 
+import com.example.claytoncodingassessment.model.CursorPage;
 import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.views.TaskView;
 import com.example.claytoncodingassessment.service.TaskService;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,10 +17,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @Tag(name ="Task", description = "Get and Create Tasks")
@@ -51,16 +57,20 @@ public class TaskController {
     }
 
     /**
-     * Get all Tasks.
+     * Get one page of Tasks ordered by id.
+     * The cursor of the next page is returned in the X-Next-Cursor header and passed back as after.
      *
+     * @param after
+     * @param limit
      * @return
+     * @throws InvalidCursorException
      */
     @Operation(summary = "Get all Tasks.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "all the tasks", content = {
                     @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            array = @ArraySchema(schema = @Schema(implementation = Task.class)),
+                            array = @ArraySchema(schema = @Schema(implementation = TaskView.class)),
                             examples = {
                                     @ExampleObject("""
                                             [
@@ -72,6 +82,7 @@ public class TaskController {
                                             			"startDateTime": "2023-05-09T23:55:30.961626",
                                             			"endDateTime": "2023-05-09T23:55:33.151368",
                                             			"executionTimeSeconds": 0,
+                                            			"executionTimeMicros": 412,
                                             			"errorMessage": "N/A",
                                             			"status": "SUCCESS",
                                             			"taskStepExecutionReports": [
@@ -81,6 +92,7 @@ public class TaskController {
                                             					"startDateTime": "2023-05-09T23:55:33.10757",
                                             					"endDateTime": "2023-05-09T23:55:33.10757",
                                             					"executionTimeSeconds": 0,
+                                            					"executionTimeMicros": 412,
                                             					"status": "SUCCESS",
                                             					"errorMessage": "N/A"
                                             				}
@@ -91,11 +103,20 @@ public class TaskController {
                                             """)
                             }
                     )
+            }),
+            @ApiResponse(responseCode = "400", description = "Bad Request.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            examples = {
+                                    @ExampleObject("Invalid cursor passed.")
+                            }
+                    )
             })
     })
     @GetMapping("/tasks")
-    public List<Task> getAllTasks() {
-        return taskService.getAllTasks();
+    public ResponseEntity<List<TaskView>> getAllTasks(@RequestParam Optional<String> after,
+                                                      @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) throws InvalidCursorException {
+        return CursorPageResponses.ok(taskService.getAllTasks(after.orElse(null), limit).map(TaskView::of));
     }
 
 }
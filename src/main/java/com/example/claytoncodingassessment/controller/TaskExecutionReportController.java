@@ -1,11 +1,18 @@
 package com.example.claytoncodingassessment.controller;
 
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.LeaderboardEntry;
+import com.example.claytoncodingassessment.model.LeaderboardOrder;
+import com.example.claytoncodingassessment.model.ServiceResult;
 import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.ReportSummary;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.views.TaskReportSummary;
+import com.example.claytoncodingassessment.model.views.TaskReportView;
+import com.example.claytoncodingassessment.service.ReportSummaryService;
 import com.example.claytoncodingassessment.service.TaskExecutionReportService;
-import com.example.claytoncodingassessment.service.exceptions.AlreadySuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import com.example.claytoncodingassessment.service.serviceimpl.ExecutionTimeLeaderboard;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,7 +23,6 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -31,6 +37,10 @@ public class TaskExecutionReportController {
 
     @Autowired
     private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+    @Autowired
+    private ExecutionTimeLeaderboard executionTimeLeaderboard;
 
     /**
      * Create a TaskReport.
@@ -38,7 +48,6 @@ public class TaskExecutionReportController {
      * @param taskId
      * @param taskExecutionReport
      * @return
-     * @param <T>
      */
     @Operation(summary = "Create a new TaskReport.")
     @ApiResponses(value = {
@@ -71,47 +80,45 @@ public class TaskExecutionReportController {
             })
     })
     @PostMapping("/task/{taskId}/taskReports")
-    public <T> T setTaskExecutionReport(@PathVariable Long taskId, @RequestBody TaskExecutionReport taskExecutionReport) {      // Here @RequestBody annotation means in the body of the
-                                                                                                                                // HTTP request, there will be an TaskExecutionReport object.
-        try{
-            taskExecutionReportService.createTaskExecutionReport(taskId, taskExecutionReport);
-            log.info("TaskReport with id " + taskExecutionReport.getId() + " has been added.");
-            return (T) new ResponseEntity<String>("TaskReport with id " + taskExecutionReport.getId() + " has been added",
-                    HttpStatus.CREATED);
-        } catch (NoSuchTaskException e) {
-            log.error(e.getMessage(), e.getStackTrace());
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (AlreadySuchTaskException e) {
-            log.error(e.getMessage(), e.getStackTrace());
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.BAD_REQUEST);
-        }
+    public ServiceResult<String> setTaskExecutionReport(@PathVariable Long taskId, @RequestBody TaskExecutionReport taskExecutionReport) {      // Here @RequestBody annotation means in the body of the
+                                                                                                                                          // HTTP request, there will be an TaskExecutionReport object.
+        return taskExecutionReportService.createTaskExecutionReport(taskId, taskExecutionReport).map(created -> {
+            log.info("TaskReport with id " + created.getId() + " has been added.");
+            return "TaskReport with id " + created.getId() + " has been added";
+        });
     }
 
     /**
-     * Get all TaskReports,
-     * or Get all TaskReports with a specific status,
-     * or Get all TaskReports sorted by execution time.
+     * Get one page of TaskReports,
+     * or of TaskReports with a specific status,
+     * or of TaskReports sorted by execution time.
+     * The cursor of the next page is returned in the X-Next-Cursor header and passed back as after.
+     * The page is read from the report_summary read model. With view=summary it is returned as it is, with the Task title
+     * and slowest StepReport of each TaskReport; otherwise the TaskReports of the page are loaded with their StepReports.
      *
      * @param status
      * @param sortBy
+     * @param view
+     * @param after
+     * @param limit
      * @return
+     * @throws InvalidCursorException
      */
     @Operation(summary = "Get all TaskReports.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success.", content = {
                     @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            array = @ArraySchema(schema = @Schema(implementation = TaskExecutionReport.class)),
+                            array = @ArraySchema(schema = @Schema(oneOf = {TaskReportView.class, TaskReportSummary.class})),
                             examples = {
-                                    @ExampleObject("""
+                                    @ExampleObject(name = "Default", value = """
                                             [
                                             	{
                                             		"id": 1,
                                             		"startDateTime": "2023-05-09T23:55:30.961626",
                                             		"endDateTime": "2023-05-09T23:55:33.151368",
                                             		"executionTimeSeconds": 0,
+                                            		"executionTimeMicros": 412,
                                             		"errorMessage": "N/A",
                                             		"status": "SUCCESS",
                                             		"taskStepExecutionReports": [
@@ -121,26 +128,145 @@ public class TaskExecutionReportController {
                                             				"startDateTime": "2023-05-09T23:55:33.10757",
                                             				"endDateTime": "2023-05-09T23:55:33.10757",
                                             				"executionTimeSeconds": 0,
+                                            				"executionTimeMicros": 412,
                                             				"status": "SUCCESS",
                                             				"errorMessage": "N/A"
                                             			}
                                             		]
                                             	}
                                             ]
+                                            """),
+                                    @ExampleObject(name = "view=summary", value = """
+                                            [
+                                            	{
+                                            		"id": 1,
+                                            		"taskId": 1,
+                                            		"taskTitle": "Task 1",
+                                            		"status": "SUCCESS",
+                                            		"startDateTime": "2023-05-09T23:55:30.961626",
+                                            		"endDateTime": "2023-05-09T23:55:33.151368",
+                                            		"executionTimeSeconds": 0,
+                                            		"executionTimeMicros": 412,
+                                            		"stepCount": 1,
+                                            		"runningStepCount": 0,
+                                            		"successStepCount": 1,
+                                            		"failureStepCount": 0,
+                                            		"slowestStepReportId": 1,
+                                            		"slowestStepName": "step2",
+                                            		"slowestStepExecutionTimeMicros": 412
+                                            	}
+                                            ]
                                             """)
                             }
                     )
             }),
+            @ApiResponse(responseCode = "400", description = "Bad Request.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            examples = {
+                                    @ExampleObject("Invalid cursor passed.")
+                            }
+                    )
+            })
     })
     @GetMapping("/tasks/taskReports")
-    public List<TaskExecutionReport> getAllTaskExecutionReports(@RequestParam Optional<String> status, @RequestParam Optional<String> sortBy) {
+    public ResponseEntity<? extends List<?>> getAllTaskExecutionReports(@RequestParam Optional<String> status, @RequestParam Optional<String> sortBy,
+                                                                        @RequestParam Optional<String> view, @RequestParam Optional<String> after,
+                                                                        @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) throws InvalidCursorException {
+        boolean summary = view.filter("summary"::equals).isPresent();
+        CursorPage<ReportSummary> page;
         if (status.isPresent() && Status.contains(status.get())) {
-            return taskExecutionReportService.getAllTaskExecutionReportsByStatus(Status.valueOf(status.get()));
+            page = reportSummaryService.getAllReportSummariesByStatus(Status.valueOf(status.get()), after.orElse(null), limit);
+        } else if (sortBy.isPresent() && sortBy.get().equals("execTime")) {
+            page = reportSummaryService.getAllReportSummariesOrderedByExeTime(after.orElse(null), limit);
+        } else {
+            page = reportSummaryService.getAllReportSummaries(after.orElse(null), limit);
         }
-        if (sortBy.isPresent() && sortBy.get().equals("execTime")) {
-            return taskExecutionReportService.getAllTaskExecutionReportsOrderedByExeTime();
+        if (summary) {
+            return CursorPageResponses.ok(page.map(TaskReportSummary::of));
         }
-        return taskExecutionReportService.getAllTaskExecutionReports();
+        List<Long> taskReportIds = page.getItems().stream().map(ReportSummary::getTaskReportId).toList();
+        List<TaskExecutionReport> taskReports = taskExecutionReportService.getTaskExecutionReports(taskReportIds);
+        return CursorPageResponses.ok(new CursorPage<>(taskReports, page.getNextCursor()).map(TaskReportView::of));
+    }
+
+    /**
+     * Get the fastest or slowest completed TaskReports from the in-memory execution time leaderboard.
+     *
+     * @param order
+     * @param limit
+     * @return
+     */
+    @Operation(summary = "Get the fastest or slowest completed TaskReports.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = LeaderboardEntry.class)),
+                            examples = {
+                                    @ExampleObject("""
+                                            [
+                                            	{
+                                            		"taskReportId": 7,
+                                            		"executionTimeMicros": 99000412,
+                                            		"rank": 42
+                                            	},
+                                            	{
+                                            		"taskReportId": 3,
+                                            		"executionTimeMicros": 61000050,
+                                            		"rank": 41
+                                            	}
+                                            ]
+                                            """)
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "400", description = "Invalid order passed.")
+    })
+    @GetMapping("/tasks/taskReports/leaderboard")
+    public List<LeaderboardEntry> getExecutionTimeLeaderboard(@RequestParam(defaultValue = "SLOWEST") LeaderboardOrder order,
+                                                              @RequestParam(defaultValue = "10") int limit) {
+        return executionTimeLeaderboard.leaders(order, Math.min(limit, CursorPage.MAX_LIMIT));
+    }
+
+    /**
+     * Get the rank of a completed TaskReport by execution time, 1 being the fastest.
+     *
+     * @param taskId
+     * @param taskReportId
+     * @return
+     */
+    @Operation(summary = "Get the execution time rank of a specific TaskReport.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = LeaderboardEntry.class),
+                            examples = {
+                                    @ExampleObject("""
+                                            {
+                                            	"taskReportId": 1,
+                                            	"executionTimeMicros": 412,
+                                            	"rank": 1
+                                            }
+                                            """)
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "404", description = "Not Found.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            examples = {
+                                    @ExampleObject("TaskReport with id 1 has not completed.")
+                            }
+                    )
+            })
+    })
+    @GetMapping("/tasks/{taskId}/taskReports/{taskReportId}/rank")
+    public ServiceResult<LeaderboardEntry> getExecutionTimeRank(@PathVariable Long taskId, @PathVariable Long taskReportId) {
+        return taskExecutionReportService.getTaskExecutionReport(taskId, taskReportId).flatMap(taskReport -> executionTimeLeaderboard.rank(taskReportId)
+                .map(ServiceResult::ok)
+                .orElseGet(() -> ServiceResult.notFound("TaskReport with id " + taskReportId + " has not completed.")));
     }
 
     /**
@@ -149,7 +275,6 @@ public class TaskExecutionReportController {
      * @param taskId
      * @param taskReportId
      * @return
-     * @param <T>
      */
     @Operation(summary = "Get a specific TaskReport.")
     @ApiResponses(value = {
@@ -164,6 +289,7 @@ public class TaskExecutionReportController {
                                             	"startDateTime": "2023-05-09T23:33:24.982218",
                                             	"endDateTime": null,
                                             	"executionTimeSeconds": null,
+                                            	"executionTimeMicros": null,
                                             	"errorMessage": "N/A",
                                             	"status": null,
                                             	"taskStepExecutionReports": []
@@ -183,18 +309,8 @@ public class TaskExecutionReportController {
             })
     })
     @GetMapping("/tasks/{taskId}/taskReports/{taskReportId}")
-    public <T> T getTaskExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId) {
-        try {
-            TaskExecutionReport TaskExecutionReport = taskExecutionReportService.getTaskExecutionReport(taskId, taskReportId);
-            return (T) new ResponseEntity<>(TaskExecutionReport, HttpStatus.OK);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
-
+    public ServiceResult<TaskExecutionReport> getTaskExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId) {
+        return taskExecutionReportService.getTaskExecutionReport(taskId, taskReportId);
     }
 
     /**
@@ -204,7 +320,6 @@ public class TaskExecutionReportController {
      * @param taskReportId
      * @param taskExecutionReport
      * @return
-     * @param <T>
      */
     @Operation(summary = "Update a specific TaskReport.")
     @ApiResponses(value = {
@@ -228,19 +343,10 @@ public class TaskExecutionReportController {
             })
     })
     @PutMapping("/tasks/{taskId}/taskReports/{taskReportId}")
-    public <T> T updateTaskExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
-                                           @RequestBody TaskExecutionReport taskExecutionReport) {
-        try {
-            taskExecutionReportService.updateTaskExecutionReport(taskId, taskReportId, taskExecutionReport);
-            return (T) new ResponseEntity<String>("Updated", HttpStatus.OK);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
-
+    public ServiceResult<String> updateTaskExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
+                                                           @RequestBody TaskExecutionReport taskExecutionReport) {
+        return taskExecutionReportService.updateTaskExecutionReport(taskId, taskReportId, taskExecutionReport)
+                .map(updated -> "Updated");
     }
 
     /**
@@ -249,7 +355,6 @@ public class TaskExecutionReportController {
      * @param taskId
      * @param taskReportId
      * @return
-     * @param <T>
      */
     @Operation(summary = "Delete a specific TaskReport.")
     @ApiResponses(value = {
@@ -273,18 +378,9 @@ public class TaskExecutionReportController {
             })
     })
     @DeleteMapping("/tasks/{taskId}/taskReports/{taskReportId}")
-    public <T> T deleteTaskExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId) {
-
-        try {
-            taskExecutionReportService.deleteTaskExecutionReport(taskId, taskReportId);
-            return (T) new ResponseEntity<String>("Deleted", HttpStatus.OK);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
+    public ServiceResult<String> deleteTaskExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId) {
+        return taskExecutionReportService.deleteTaskExecutionReport(taskId, taskReportId)
+                .map(deleted -> "Deleted");
     }
 
 }
@@ -1,9 +1,14 @@
 package com.example.claytoncodingassessment.controller;
 
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.LatencyWindow;
+import com.example.claytoncodingassessment.model.ServiceResult;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.StepLatency;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchStepReportException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import com.example.claytoncodingassessment.service.serviceimpl.StepLatencySketches;
 import com.example.claytoncodingassessment.service.serviceimpl.TaskStepExecutionReportServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,11 +19,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,17 +34,20 @@ import java.util.Optional;
 @Tag(name ="TaskStepExecutionReport", description = "CRUD operations for TaskStepExecutionReport resource.")
 public class TaskStepExecutionReportController {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     @Autowired
     private TaskStepExecutionReportServiceImpl taskStepExecutionReportServiceImpl;
+    @Autowired
+    private StepLatencySketches stepLatencySketches;
 
     /**
-     * Create a StepReport.
+     * Create a StepReport. startDateTime and endDateTime are taken from the body when given, otherwise from the server.
      *
      * @param taskId
      * @param taskReportId
      * @param taskStepExecutionReport
      * @return
-     * @param <T>
      */
     @Operation(summary = "Create a new StepReport.")
     @ApiResponses(value = {
@@ -49,6 +60,22 @@ public class TaskStepExecutionReportController {
                             }
                     )
             }),
+            @ApiResponse(responseCode = "202", description = "Queued, with ingestion.write-behind.enabled.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = {
+                                    @ExampleObject("StepReport with generated id of 1, has been accepted.")
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "503", description = "Write-behind queue full.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = {
+                                    @ExampleObject("Too many StepReport writes are queued, retry later.")
+                            }
+                    )
+            }),
             @ApiResponse(responseCode = "404", description = "Not Found.", content = {
                     @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
@@ -60,32 +87,64 @@ public class TaskStepExecutionReportController {
             })
     })
     @PostMapping("/tasks/{taskId}/taskReports/{taskReportId}/stepReports")
-    public <T> T  setTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
-                                             @RequestBody TaskStepExecutionReport taskStepExecutionReport) {
-        try {
-            taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(taskId, taskReportId, taskStepExecutionReport);
-            return (T) new ResponseEntity<String>("StepReport with generated id of " + taskStepExecutionReport.getId() + ", has been added.",
-                    HttpStatus.CREATED);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
+    public ServiceResult<String> setTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
+                                                            @RequestBody TaskStepExecutionReport taskStepExecutionReport) {
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(taskId, taskReportId, taskStepExecutionReport);
+        return result.map(created -> "StepReport with generated id of " + created.getId()
+                + (result.getOutcome() == ServiceResult.Outcome.ACCEPTED ? ", has been accepted." : ", has been added."));
     }
 
     /**
-     * Get all StepReports.
+     * Create many StepReports for the same TaskReport in one request.
      *
+     * @param taskId
+     * @param taskReportId
+     * @param taskStepExecutionReports
      * @return
      */
+    @Operation(summary = "Create a batch of new StepReports.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = TaskStepExecutionReport.class)),
+                            examples = {
+                                    @ExampleObject("3 StepReports have been added.")
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "404", description = "Not Found.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = TaskStepExecutionReport.class)),
+                            examples = {
+                                    @ExampleObject("Non-existent taskId passed.")
+                            }
+                    )
+            })
+    })
+    @PostMapping("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/batch")
+    public ServiceResult<String> setTaskStepExecutionReports(@PathVariable Long taskId, @PathVariable Long taskReportId,
+                                                             @RequestBody List<TaskStepExecutionReport> taskStepExecutionReports) {
+        return taskStepExecutionReportServiceImpl.createTaskStepExecutionReports(taskId, taskReportId, taskStepExecutionReports)
+                .map(createdStepReports -> createdStepReports.size() + " StepReports have been added.");
+    }
+
+    /**
+     * Get one page of StepReports ordered by id.
+     * The cursor of the next page is returned in the X-Next-Cursor header and passed back as after.
+     *
+     * @param after
+     * @param limit
+     * @return
+     * @throws InvalidCursorException
+     */
     @Operation(summary = "Get all StepReports.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success.", content = {
                     @Content(
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            array = @ArraySchema(schema = @Schema(implementation = TaskStepExecutionReport.class)),
+                            array = @ArraySchema(schema = @Schema(implementation = StepReportView.class)),
                             examples = {
                                     @ExampleObject("""
                                             [
@@ -95,6 +154,7 @@ public class TaskStepExecutionReportController {
                                             		"startDateTime": "2023-05-09T23:55:33.10757",
                                             		"endDateTime": "2023-05-09T23:55:33.10757",
                                             		"executionTimeSeconds": 0,
+                                            		"executionTimeMicros": 412,
                                             		"status": "SUCCESS",
                                             		"errorMessage": "N/A"
                                             	}
@@ -103,11 +163,106 @@ public class TaskStepExecutionReportController {
                             }
                     )
             }),
+            @ApiResponse(responseCode = "400", description = "Bad Request.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            examples = {
+                                    @ExampleObject("Invalid cursor passed.")
+                            }
+                    )
+            })
     })
     @GetMapping("/tasks/taskReports/stepReports")
-    public ResponseEntity<List<TaskStepExecutionReport>> getAllTaskStepExecutionReports() {
-        return new ResponseEntity<>(taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReports(),
-                HttpStatus.OK);
+    public ResponseEntity<List<StepReportView>> getAllTaskStepExecutionReports(@RequestParam Optional<String> after,
+                                                                               @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) throws InvalidCursorException {
+        return CursorPageResponses.ok(taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReports(after.orElse(null), limit).map(StepReportView::of));
+    }
+
+    /**
+     * Export StepReports as newline-delimited JSON, optionally filtered by status and a startDateTime range.
+     * Rows are streamed straight from the database, so the response size is not bounded by the heap.
+     *
+     * @param status
+     * @param from
+     * @param to
+     * @return
+     */
+    @Operation(summary = "Export StepReports as NDJSON.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = NDJSON_VALUE,
+                            examples = {
+                                    @ExampleObject("""
+                                            {"id":1,"stepName":"step1","startDateTime":"2023-05-09T23:55:33.10757","endDateTime":"2023-05-09T23:55:33.10757","executionTimeSeconds":0,"executionTimeMicros":412,"status":"SUCCESS","errorMessage":"N/A"}
+                                            {"id":2,"stepName":"step2","startDateTime":"2023-05-09T23:55:34.10757","endDateTime":null,"executionTimeSeconds":null,"executionTimeMicros":null,"status":"RUNNING","errorMessage":null}
+                                            """)
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "400", description = "Bad Request.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            examples = {
+                                    @ExampleObject("Invalid status passed.")
+                            }
+                    )
+            })
+    })
+    @GetMapping("/tasks/taskReports/stepReports/export")
+    public ResponseEntity<StreamingResponseBody> exportTaskStepExecutionReports(@RequestParam Optional<String> status,
+                                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> from,
+                                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> to) {
+        // The body has to be declared as StreamingResponseBody for Spring to stream it, so errors are streamed too.
+        if (status.isPresent() && !Status.contains(status.get())) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write("Invalid status passed.".getBytes(StandardCharsets.UTF_8)));
+        }
+        Status statusFilter = status.map(Status::valueOf).orElse(null);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(outputStream -> taskStepExecutionReportServiceImpl.exportTaskStepExecutionReports(
+                        statusFilter, from.orElse(null), to.orElse(null), outputStream));
+    }
+
+    /**
+     * Get the p50, p95 and p99 executionTimeMicros of each stepName, or of one stepName,
+     * over the StepReports that completed within the last hour, day or week.
+     *
+     * @param window
+     * @param stepName
+     * @return
+     */
+    @Operation(summary = "Get execution time percentiles per stepName.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success.", content = {
+                    @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = StepLatency.class)),
+                            examples = {
+                                    @ExampleObject("""
+                                            [
+                                            	{
+                                            		"stepName": "step1",
+                                            		"window": "DAY",
+                                            		"count": 120,
+                                            		"p50Micros": 4063,
+                                            		"p95Micros": 31103,
+                                            		"p99Micros": 58111,
+                                            		"maxMicros": 99327
+                                            	}
+                                            ]
+                                            """)
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "400", description = "Invalid window passed.")
+    })
+    @GetMapping("/tasks/taskReports/stepReports/latency")
+    public List<StepLatency> getStepLatencies(@RequestParam(defaultValue = "HOUR") LatencyWindow window,
+                                              @RequestParam Optional<String> stepName) {
+        return stepLatencySketches.latencies(window, stepName);
     }
 
     /**
@@ -117,7 +272,6 @@ public class TaskStepExecutionReportController {
      * @param taskReportId
      * @param stepReportId
      * @return
-     * @param <T>
      */
     @Operation(summary = "Get a specific StepReport.")
     @ApiResponses(value = {
@@ -133,6 +287,7 @@ public class TaskStepExecutionReportController {
                                             	"startDateTime": "2023-05-09T23:55:33.10757",
                                             	"endDateTime": "2023-05-09T23:55:33.10757",
                                             	"executionTimeSeconds": 0,
+                                            	"executionTimeMicros": 412,
                                             	"status": "SUCCESS",
                                             	"errorMessage": "N/A"
                                             }
@@ -151,32 +306,21 @@ public class TaskStepExecutionReportController {
             })
     })
     @GetMapping("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}")
-    public <T> T getTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
-                                                        @PathVariable Long stepReportId) {
-        try {
-            TaskStepExecutionReport taskStepExecutionReport = taskStepExecutionReportServiceImpl.getTaskStepExecutionReport(taskId, taskReportId, stepReportId);
-            return (T) new ResponseEntity<>(taskStepExecutionReport, HttpStatus.OK);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchStepReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
+    public ServiceResult<TaskStepExecutionReport> getTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
+                                                                            @PathVariable Long stepReportId) {
+        return taskStepExecutionReportServiceImpl.getTaskStepExecutionReport(taskId, taskReportId, stepReportId);
     }
 
     /**
      * Update a specific StepReport.
+     * startDateTime and endDateTime are taken from the body when given. An update whose sequenceNumber is not after the
+     * stored one arrived out of order and is ignored.
      *
      * @param taskId
      * @param taskReportId
      * @param stepReportId
      * @param taskStepExecutionReport
      * @return
-     * @param <T>
      */
     @Operation(summary = "Update a specific StepReport.")
     @ApiResponses(value = {
@@ -185,7 +329,24 @@ public class TaskStepExecutionReportController {
                             mediaType = MediaType.APPLICATION_JSON_VALUE,
                             array = @ArraySchema(schema = @Schema(implementation = TaskStepExecutionReport.class)),
                             examples = {
-                                    @ExampleObject("Updated")
+                                    @ExampleObject(name = "Applied", value = "Updated"),
+                                    @ExampleObject(name = "Out of order", value = "Ignored, sequenceNumber 3 is not after 4.")
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "202", description = "Queued, with ingestion.write-behind.enabled.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = {
+                                    @ExampleObject("Accepted")
+                            }
+                    )
+            }),
+            @ApiResponse(responseCode = "503", description = "Write-behind queue full.", content = {
+                    @Content(
+                            mediaType = MediaType.TEXT_PLAIN_VALUE,
+                            examples = {
+                                    @ExampleObject("Too many StepReport writes are queued, retry later.")
                             }
                     )
             }),
@@ -200,22 +361,16 @@ public class TaskStepExecutionReportController {
             })
     })
     @PutMapping("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}")              // e.g. endpoint: ...
-    public <T> T updateTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
-                                               @PathVariable Long stepReportId,
-                                               @RequestBody TaskStepExecutionReport taskStepExecutionReport) {
-        try {
-            taskStepExecutionReportServiceImpl.updateTaskStepExecutionReport(taskId, taskReportId, stepReportId, taskStepExecutionReport);
-            return (T) new ResponseEntity<String>("Updated", HttpStatus.OK);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchStepReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
+    public ServiceResult<String> updateTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
+                                                               @PathVariable Long stepReportId,
+                                                               @RequestBody TaskStepExecutionReport taskStepExecutionReport) {
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.updateTaskStepExecutionReport(taskId, taskReportId, stepReportId, taskStepExecutionReport);
+        return result.map(updated -> switch (result.getOutcome()) {
+            case IGNORED -> "Ignored, sequenceNumber " + taskStepExecutionReport.getSequenceNumber() + " is not after "
+                    + updated.getSequenceNumber() + ".";
+            case ACCEPTED -> "Accepted";
+            default -> "Updated";
+        });
     }
 
     /**
@@ -225,7 +380,6 @@ public class TaskStepExecutionReportController {
      * @param taskReportId
      * @param stepReportId
      * @return
-     * @param <T>
      */
     @Operation(summary = "Delete a specific StepReport.")
     @ApiResponses(value = {
@@ -249,21 +403,10 @@ public class TaskStepExecutionReportController {
             })
     })
     @DeleteMapping("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}")      // e.g. endpoint: ...
-    public <T> T deleteTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
-                                                @PathVariable Long stepReportId) {
-        try {
-            taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(taskId, taskReportId, stepReportId);
-            return (T) new ResponseEntity<String>("Deleted", HttpStatus.OK);
-        } catch (NoSuchTaskException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        } catch (NoSuchStepReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
-        }
+    public ServiceResult<String> deleteTaskStepExecutionReport(@PathVariable Long taskId, @PathVariable Long taskReportId,
+                                                               @PathVariable Long stepReportId) {
+        return taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(taskId, taskReportId, stepReportId)
+                .map(deleted -> "Deleted");
     }
 
 
@@ -274,7 +417,6 @@ public class TaskStepExecutionReportController {
      * @param taskReportId
      * @param sortBy
      * @return
-     * @param <T>
      */
     @Operation(summary = "Get all the StepReports within a specific TaskReport.")
     @ApiResponses(value = {
@@ -292,6 +434,7 @@ public class TaskStepExecutionReportController {
                                             		"startDateTime": "2023-05-09T01:13:59.763364",
                                             		"endDateTime": "2023-05-09T01:13:59.763364",
                                             		"executionTimeSeconds": 0,
+                                            		"executionTimeMicros": 412,
                                             		"status": "SUCCESS",
                                             		"errorMessage": "N/A"
                                             	},
@@ -302,6 +445,7 @@ public class TaskStepExecutionReportController {
                                             		"startDateTime": "2023-05-09T01:12:06.623236",
                                             		"endDateTime": "2023-05-09T01:13:45.657699",
                                             		"executionTimeSeconds": 99,
+                                            		"executionTimeMicros": 99000412,
                                             		"status": "SUCCESS",
                                             		"errorMessage": "N/A new again "
                                             	}
@@ -321,36 +465,15 @@ public class TaskStepExecutionReportController {
             })
     })
     @GetMapping("/taskReports/{taskReportId}/stepReports")
-    public <T> T getAllTaskStepExecutionReportsForGivenTaskExecutionReport(@PathVariable Long taskReportId,
-                                                                           @RequestParam Optional<String> sortBy) {
+    public ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportsForGivenTaskExecutionReport(@PathVariable Long taskReportId,
+                                                                                                                @RequestParam Optional<String> sortBy) {
         if (sortBy.isPresent() && sortBy.get().equals("startDateTime")) {   // ...sort by startDateTime
-            try {
-                List<TaskStepExecutionReport> taskStepExecutionReportList = taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReportsSortedByStartDateTime(taskReportId);
-                return (T) new ResponseEntity<List<TaskStepExecutionReport>>(taskStepExecutionReportList,
-                        HttpStatus.OK);
-            } catch (NoSuchTaskReportException e) {
-                return (T) new ResponseEntity<String>(e.getMessage(),
-                        HttpStatus.NOT_FOUND);
-            }
+            return taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReportsSortedByStartDateTime(taskReportId);
         }
         if (sortBy.isPresent() && sortBy.get().equals("execTime")) {        // ...sort by executionTimeSeconds
-            try {
-                List<TaskStepExecutionReport> taskStepExecutionReportList = taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReportsSortedByExeTime(taskReportId);
-                return (T) new ResponseEntity<List<TaskStepExecutionReport>>(taskStepExecutionReportList,
-                        HttpStatus.OK);
-            } catch (NoSuchTaskReportException e) {
-                return (T) new ResponseEntity<String>(e.getMessage(),
-                        HttpStatus.NOT_FOUND);
-            }
-        }
-        try {                                                               // ... not sorted.
-            List<TaskStepExecutionReport> taskStepExecutionReportList = taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReportGivenTaskExecutionReport(taskReportId);
-            return (T) new ResponseEntity<List<TaskStepExecutionReport>>(taskStepExecutionReportList,
-                    HttpStatus.OK);
-        } catch (NoSuchTaskReportException e) {
-            return (T) new ResponseEntity<String>(e.getMessage(),
-                    HttpStatus.NOT_FOUND);
+            return taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReportsSortedByExeTime(taskReportId);
         }
+        return taskStepExecutionReportServiceImpl.getAllTaskStepExecutionReportGivenTaskExecutionReport(taskReportId);   // ... not sorted.
     }
 
 }
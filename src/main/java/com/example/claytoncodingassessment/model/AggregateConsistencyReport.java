@@ -0,0 +1,18 @@
+package com.example.claytoncodingassessment.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Result of comparing the stored step aggregates of a TaskReport against a full recompute.
+ */
+@Value
+@Builder
+public class AggregateConsistencyReport {
+
+    Long taskReportId;
+    boolean consistent;
+    boolean repaired;
+    StepAggregates stored;
+    StepAggregates recomputed;
+}
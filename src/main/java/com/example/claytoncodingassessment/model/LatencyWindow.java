@@ -0,0 +1,29 @@
+package com.example.claytoncodingassessment.model;
+
+import java.time.Duration;
+
+/**
+ * How far back a step latency query looks. Each window is kept as a ring of buckets, so it is exact to one bucket.
+ */
+public enum LatencyWindow {
+
+    HOUR(Duration.ofMinutes(1), 60),
+    DAY(Duration.ofHours(1), 24),
+    WEEK(Duration.ofHours(6), 28);
+
+    private final Duration bucketWidth;
+    private final int bucketCount;
+
+    LatencyWindow(Duration bucketWidth, int bucketCount) {
+        this.bucketWidth = bucketWidth;
+        this.bucketCount = bucketCount;
+    }
+
+    public Duration getBucketWidth() {
+        return bucketWidth;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.claytoncodingassessment.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A completed TaskReport's place among all completed TaskReports by execution time; rank 1 is the fastest.
+ * Ties are ranked by TaskReport id.
+ */
+@Value
+@Builder
+public class LeaderboardEntry {
+
+    Long taskReportId;
+    long executionTimeMicros;
+    long rank;
+}
@@ -0,0 +1,9 @@
+package com.example.claytoncodingassessment.model;
+
+/**
+ * Which end of the execution time leaderboard to read.
+ */
+public enum LeaderboardOrder {
+    FASTEST,
+    SLOWEST
+}
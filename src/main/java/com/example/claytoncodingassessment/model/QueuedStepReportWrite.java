@@ -0,0 +1,16 @@
+package com.example.claytoncodingassessment.model;
+
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import lombok.Value;
+
+/**
+ * A StepReport write accepted by the write-behind queue but not yet applied.
+ * A create carries the StepReport with its pre-assigned id, an update the new state under the id of the StepReport it replaces.
+ */
+@Value
+public class QueuedStepReportWrite {
+
+    Long taskReportId;
+    TaskStepExecutionReport stepReport;
+    boolean update;
+}
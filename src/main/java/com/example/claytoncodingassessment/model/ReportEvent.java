@@ -0,0 +1,53 @@
+package com.example.claytoncodingassessment.model;
+
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A change to a TaskReport or one of its StepReports, published by the write paths and delivered once the change has committed.
+ * Step events carry the StepReport as it is after the change (as it was, for a delete), and an update also the status
+ * it had before; a status change carries the new TaskReport status. A TaskReport delete is a single event that stands
+ * for its StepReports too, and is the last event about that TaskReport.
+ */
+@Value
+@Builder
+public class ReportEvent {
+
+    public enum Type {
+        STEP_CREATED,
+        STEP_UPDATED,
+        STEP_DELETED,
+        STATUS_CHANGED,
+        TASK_REPORT_DELETED
+    }
+
+    Type type;
+    Long taskReportId;
+    StepReportView stepReport;
+    Status previousStepStatus;
+    Status taskReportStatus;
+
+    public static ReportEvent ofStep(Type type, Long taskReportId, StepReportView stepReport) {
+        return ReportEvent.builder().type(type).taskReportId(taskReportId).stepReport(stepReport).build();
+    }
+
+    public static ReportEvent ofStepUpdate(Long taskReportId, Status previousStepStatus, StepReportView stepReport) {
+        return ReportEvent.builder().type(Type.STEP_UPDATED).taskReportId(taskReportId).previousStepStatus(previousStepStatus).stepReport(stepReport).build();
+    }
+
+    public static ReportEvent ofStatus(Long taskReportId, Status taskReportStatus) {
+        return ReportEvent.builder().type(Type.STATUS_CHANGED).taskReportId(taskReportId).taskReportStatus(taskReportStatus).build();
+    }
+
+    public static ReportEvent ofTaskReportDelete(Long taskReportId) {
+        return ReportEvent.builder().type(Type.TASK_REPORT_DELETED).taskReportId(taskReportId).build();
+    }
+
+    /**
+     * The status the event is about: the StepReport's for a step event, the TaskReport's for a status change.
+     */
+    public Status subjectStatus() {
+        return stepReport != null ? stepReport.getStatus() : taskReportStatus;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.claytoncodingassessment.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.function.Function;
+
+/**
+ * Outcome of a service call: either a value, or the reason there is none.
+ * Misses and conflicts are ordinary return values rather than exceptions, so a 404 costs no more than a hit.
+ * Controllers return it as is; ServiceResultAdvice turns the outcome into the HTTP status.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ServiceResult<T> {
+
+    public enum Outcome {
+        OK,
+        CREATED,
+        ACCEPTED,
+        IGNORED,
+        INVALID,
+        NOT_FOUND,
+        CONFLICT,
+        UNAVAILABLE
+    }
+
+    Outcome outcome;
+    T value;
+    String message;
+
+    public static <T> ServiceResult<T> ok(T value) {
+        return new ServiceResult<>(Outcome.OK, value, null);
+    }
+
+    public static <T> ServiceResult<T> created(T value) {
+        return new ServiceResult<>(Outcome.CREATED, value, null);
+    }
+
+    public static <T> ServiceResult<T> accepted(T value) {
+        return new ServiceResult<>(Outcome.ACCEPTED, value, null);
+    }
+
+    /**
+     * The request was valid but changed nothing, as a later one has already been applied; value is the current state.
+     */
+    public static <T> ServiceResult<T> ignored(T value) {
+        return new ServiceResult<>(Outcome.IGNORED, value, null);
+    }
+
+    public static <T> ServiceResult<T> invalid(String message) {
+        return new ServiceResult<>(Outcome.INVALID, null, message);
+    }
+
+    public static <T> ServiceResult<T> notFound(String message) {
+        return new ServiceResult<>(Outcome.NOT_FOUND, null, message);
+    }
+
+    public static <T> ServiceResult<T> conflict(String message) {
+        return new ServiceResult<>(Outcome.CONFLICT, null, message);
+    }
+
+    public static <T> ServiceResult<T> unavailable(String message) {
+        return new ServiceResult<>(Outcome.UNAVAILABLE, null, message);
+    }
+
+    public boolean isSuccess() {
+        return outcome == Outcome.OK || outcome == Outcome.CREATED || outcome == Outcome.ACCEPTED || outcome == Outcome.IGNORED;
+    }
+
+    /**
+     * Transforms the value of a successful result, keeping its outcome. A failure is passed through unchanged.
+     */
+    public <R> ServiceResult<R> map(Function<? super T, ? extends R> mapper) {
+        return isSuccess() ? new ServiceResult<>(outcome, mapper.apply(value), null) : failure();
+    }
+
+    /**
+     * Chains a further service step onto a successful result. A failure is passed through unchanged.
+     */
+    public <R> ServiceResult<R> flatMap(Function<? super T, ServiceResult<R>> mapper) {
+        return isSuccess() ? mapper.apply(value) : failure();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> ServiceResult<R> failure() {
+        return (ServiceResult<R>) this;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.claytoncodingassessment.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-status StepReport counts, summed execution time and latest end time of the StepReports of one TaskReport.
+ */
+@Value
+@Builder
+public class StepAggregates {
+
+    long stepCount;
+    long runningStepCount;
+    long successStepCount;
+    long failureStepCount;
+    long stepExecutionTimeSeconds;
+    long stepExecutionTimeMicros;
+    LocalDateTime latestStepEndDateTime;
+}
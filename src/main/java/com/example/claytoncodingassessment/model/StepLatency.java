@@ -0,0 +1,20 @@
+package com.example.claytoncodingassessment.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Execution time percentiles, in microseconds, of the StepReports with one stepName that completed within a window.
+ */
+@Value
+@Builder
+public class StepLatency {
+
+    String stepName;
+    LatencyWindow window;
+    long count;
+    long p50Micros;
+    long p95Micros;
+    long p99Micros;
+    long maxMicros;
+}
@@ -0,0 +1,32 @@
+package com.example.claytoncodingassessment.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A TaskReport was created, deleted, or had its step aggregates and derived status and times changed.
+ * Carries the TaskReport as it is after the change, so listeners never have to read it back; taskTitle is only set on CREATED.
+ */
+@Value
+@Builder
+public class TaskReportChanged {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    Type type;
+    Long taskReportId;
+    Long taskId;
+    String taskTitle;
+    Status status;
+    LocalDateTime startDateTime;
+    LocalDateTime endDateTime;
+    Long executionTimeSeconds;
+    Long executionTimeMicros;
+    StepAggregates stepAggregates;
+}
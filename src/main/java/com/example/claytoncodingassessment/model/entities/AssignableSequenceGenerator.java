@@ -0,0 +1,19 @@
+package com.example.claytoncodingassessment.model.entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * A pooled sequence generator that hands out the id a StepReport has reserved, if it has one.
+ * The write-behind queue takes a StepReport's id from the sequence when it accepts the request and persists the row later.
+ */
+public class AssignableSequenceGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (object instanceof TaskStepExecutionReport stepReport && stepReport.getReservedId() != null) {
+            return stepReport.getReservedId();
+        }
+        return super.generate(session, object);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.claytoncodingassessment.model.entities;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Ids come from database sequences handed out in blocks of ALLOCATION_SIZE (Hibernate's pooled optimizer),
+ * so new rows get their key without a round trip and inserts can be JDBC-batched.
+ * ALLOCATION_SIZE should match hibernate.jdbc.batch_size.
+ */
+public final class IdSequences {
+
+    public static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * The sequence behind each table's id column, as created by the schema update.
+     */
+    public static final List<IdSequence> ALL = List.of(
+            new IdSequence("task_seq", "task", "task_id"),
+            new IdSequence("task_execution_report_seq", "task_execution_report", "task_report_id"),
+            new IdSequence("task_step_execution_report_seq", "task_step_execution_report", "id")
+    );
+
+    @Value
+    public static class IdSequence {
+        String sequenceName;
+        String tableName;
+        String idColumn;
+    }
+
+    private IdSequences() {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.claytoncodingassessment.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * The response to a write sent with an Idempotency-Key, kept so a retry of the same request can be answered with it.
+ * requestKey is the method, path and key of the original request.
+ */
+@Table(name = "IdempotencyRecord", indexes = {
+        @Index(name = "idx_idempotency_record_created_date_time", columnList = "createdDateTime")
+})
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 512)
+    private String requestKey;
+    @Column
+    private int status;
+    @Column
+    private String contentType;
+    @Column(length = 4096)
+    private String body;
+    @Column
+    private LocalDateTime createdDateTime;
+}
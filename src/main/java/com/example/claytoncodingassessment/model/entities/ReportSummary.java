@@ -0,0 +1,62 @@
+package com.example.claytoncodingassessment.model.entities;
+
+import com.example.claytoncodingassessment.config.SecondLevelCacheConfig;
+import com.example.claytoncodingassessment.model.Status;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalised read model of one TaskReport: its Task's title, status, times, per-status step counts and slowest StepReport.
+ * Rows are written only by ReportSummaryServiceImpl, from the domain events of the write paths, and serve the TaskReport
+ * lists without touching the TaskReport, Task or StepReport tables.
+ */
+@Table(name = "report_summary", indexes = {
+        @Index(name = "idx_report_summary_status", columnList = "status, taskReportId"),
+        @Index(name = "idx_report_summary_execution_time", columnList = "executionTimeMicros, taskReportId")
+})
+@Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.REPORT_SUMMARIES)
+@NoArgsConstructor
+@AllArgsConstructor
+@Setter
+@Getter
+@Builder
+public class ReportSummary {
+
+    @Id
+    private Long taskReportId;
+    @Column
+    private Long taskId;
+    @Column
+    private String taskTitle;
+    @Column
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    @Column
+    private LocalDateTime startDateTime;
+    @Column
+    private LocalDateTime endDateTime;
+    @Column
+    private Long executionTimeSeconds;
+    @Column
+    private Long executionTimeMicros;
+    @Column
+    private long stepCount;
+    @Column
+    private long runningStepCount;
+    @Column
+    private long successStepCount;
+    @Column
+    private long failureStepCount;
+    @Column
+    private Long slowestStepReportId;
+    @Column
+    private String slowestStepName;
+    @Column
+    private Long slowestStepExecutionTimeMicros;
+}
@@ -1,7 +1,10 @@
 package com.example.claytoncodingassessment.model.entities;
+import com.example.claytoncodingassessment.config.SecondLevelCacheConfig;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * I assume there is an entity task, which will have one-to-one relationship with TaskExecutionReport.
@@ -9,6 +12,8 @@ import lombok.*;
  */
 @Table(name = "task")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.TASKS)
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
@@ -17,7 +22,8 @@ import lombok.*;
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     @Column(name = "task_id", nullable = false)
     private Long id;
     @NonNull
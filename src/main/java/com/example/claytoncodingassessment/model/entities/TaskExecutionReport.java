@@ -1,16 +1,26 @@
 package com.example.claytoncodingassessment.model.entities;
 
+import com.example.claytoncodingassessment.config.SecondLevelCacheConfig;
 import com.example.claytoncodingassessment.model.Status;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.Set;
 
-@Table(name = "TaskExecutionReport")
+@Table(name = "TaskExecutionReport", indexes = {
+        @Index(name = "idx_task_report_status", columnList = "status"),
+        @Index(name = "idx_task_report_execution_time", columnList = "executionTimeMicros"),
+        @Index(name = "idx_task_report_start_date_time", columnList = "startDateTime")
+})
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.TASK_REPORTS)
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
@@ -19,7 +29,8 @@ import java.util.Set;
 public class TaskExecutionReport {
 
     @Id                 // Tells the database that id will be unique for each TaskExecutionReport.
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_execution_report_seq")
+    @SequenceGenerator(name = "task_execution_report_seq", sequenceName = "task_execution_report_seq", allocationSize = IdSequences.ALLOCATION_SIZE)
     @Column(name="taskReport_id", nullable = false)
     private Long id;
     @OneToOne(fetch = FetchType.LAZY)
@@ -33,13 +44,40 @@ public class TaskExecutionReport {
     @Column
     private Long executionTimeSeconds;
     @Column
+    private Long executionTimeMicros;
+    @Column
     private String errorMessage;
     @Column
     @Enumerated(EnumType.STRING)
     private Status status;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.TASK_REPORT_STEP_REPORTS)
     @OneToMany(mappedBy="taskExecutionId", fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)     // Tells the database that one task can have many steps.
     private Set<TaskStepExecutionReport> taskStepExecutionReports;
 
+    // Running aggregates over taskStepExecutionReports, kept up to date by every StepReport mutation
+    // so status and execution time can be derived without loading the steps.
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long stepCount;
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long runningStepCount;
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long successStepCount;
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long failureStepCount;
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long stepExecutionTimeSeconds;
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long stepExecutionTimeMicros;
+    @Column
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime latestStepEndDateTime;
+
     @JsonManagedReference
     public Set<TaskStepExecutionReport> getTaskStepExecutionReports() {
         return taskStepExecutionReports;
@@ -1,23 +1,38 @@
 package com.example.claytoncodingassessment.model.entities;
 
+import com.example.claytoncodingassessment.config.SecondLevelCacheConfig;
 import com.example.claytoncodingassessment.model.Status;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
 
 @Table(name = "TaskStepExecutionReport")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.STEP_REPORTS)
 @NoArgsConstructor
 @AllArgsConstructor
 @Setter
 @Getter
-@Builder
+@Builder(toBuilder = true)
 public class  TaskStepExecutionReport  {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "task_step_execution_report_seq")
+    @GenericGenerator(name = "task_step_execution_report_seq",
+            strategy = "com.example.claytoncodingassessment.model.entities.AssignableSequenceGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "task_step_execution_report_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + IdSequences.ALLOCATION_SIZE)
+    })
     private Long id;
     @ManyToOne(fetch = FetchType.LAZY, cascade = CascadeType.PERSIST)
     @JoinColumn(name = "taskReport_id")
@@ -32,13 +47,30 @@ public class  TaskStepExecutionReport  {
     @Column
     private Long executionTimeSeconds;
     @Column
+    private Long executionTimeMicros;
+    @Column
     @Enumerated(EnumType.STRING)
     private Status status;
     @Column
     private String errorMessage;
+    @Column
+    private Long sequenceNumber;     // Client-assigned and increasing per StepReport, so late updates can be told apart.
+    @Transient
+    @JsonIgnore
+    private Long reservedId;         // Taken from the sequence before the insert by the write-behind queue, and handed out by AssignableSequenceGenerator.
 
     @JsonBackReference
     public TaskExecutionReport getTaskExecutionId() {
         return taskExecutionId;
     }
+
+    /**
+     * executionTimeMicros, or executionTimeSeconds for StepReports completed before microseconds were recorded.
+     */
+    public Long preciseExecutionTimeMicros() {
+        if (executionTimeMicros != null || executionTimeSeconds == null) {
+            return executionTimeMicros;
+        }
+        return TimeUnit.SECONDS.toMicros(executionTimeSeconds);
+    }
 }
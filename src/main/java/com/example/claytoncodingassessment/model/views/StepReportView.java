@@ -0,0 +1,40 @@
+package com.example.claytoncodingassessment.model.views;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only StepReport as returned by the list endpoints.
+ */
+@Value
+@Builder
+public class StepReportView {
+
+    Long id;
+    String stepName;
+    LocalDateTime startDateTime;
+    LocalDateTime endDateTime;
+    Long executionTimeSeconds;
+    Long executionTimeMicros;
+    Status status;
+    String errorMessage;
+    Long sequenceNumber;
+
+    public static StepReportView of(TaskStepExecutionReport stepReport) {
+        return StepReportView.builder()
+                .id(stepReport.getId())
+                .stepName(stepReport.getStepName())
+                .startDateTime(stepReport.getStartDateTime())
+                .endDateTime(stepReport.getEndDateTime())
+                .executionTimeSeconds(stepReport.getExecutionTimeSeconds())
+                .executionTimeMicros(stepReport.getExecutionTimeMicros())
+                .status(stepReport.getStatus())
+                .errorMessage(stepReport.getErrorMessage())
+                .sequenceNumber(stepReport.getSequenceNumber())
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.claytoncodingassessment.model.views;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.ReportSummary;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A TaskReport without its StepReports, returned by GET /tasks/taskReports?view=summary.
+ * Everything here is a column of the report_summary read model, so building it never reads the TaskReport or its StepReports.
+ */
+@Value
+@Builder
+public class TaskReportSummary {
+
+    Long id;
+    Long taskId;
+    String taskTitle;
+    Status status;
+    LocalDateTime startDateTime;
+    LocalDateTime endDateTime;
+    Long executionTimeSeconds;
+    Long executionTimeMicros;
+    long stepCount;
+    long runningStepCount;
+    long successStepCount;
+    long failureStepCount;
+    Long slowestStepReportId;
+    String slowestStepName;
+    Long slowestStepExecutionTimeMicros;
+
+    public static TaskReportSummary of(ReportSummary reportSummary) {
+        return TaskReportSummary.builder()
+                .id(reportSummary.getTaskReportId())
+                .taskId(reportSummary.getTaskId())
+                .taskTitle(reportSummary.getTaskTitle())
+                .status(reportSummary.getStatus())
+                .startDateTime(reportSummary.getStartDateTime())
+                .endDateTime(reportSummary.getEndDateTime())
+                .executionTimeSeconds(reportSummary.getExecutionTimeSeconds())
+                .executionTimeMicros(reportSummary.getExecutionTimeMicros())
+                .stepCount(reportSummary.getStepCount())
+                .runningStepCount(reportSummary.getRunningStepCount())
+                .successStepCount(reportSummary.getSuccessStepCount())
+                .failureStepCount(reportSummary.getFailureStepCount())
+                .slowestStepReportId(reportSummary.getSlowestStepReportId())
+                .slowestStepName(reportSummary.getSlowestStepName())
+                .slowestStepExecutionTimeMicros(reportSummary.getSlowestStepExecutionTimeMicros())
+                .build();
+    }
+}
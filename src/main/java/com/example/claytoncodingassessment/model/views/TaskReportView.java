@@ -0,0 +1,53 @@
+package com.example.claytoncodingassessment.model.views;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read-only TaskReport with its StepReports, as returned by the list endpoints.
+ * The StepReports must already be loaded, it is built after the persistence context has closed.
+ */
+@Value
+@Builder
+public class TaskReportView {
+
+    Long id;
+    LocalDateTime startDateTime;
+    LocalDateTime endDateTime;
+    Long executionTimeSeconds;
+    Long executionTimeMicros;
+    String errorMessage;
+    Status status;
+    List<StepReportView> taskStepExecutionReports;
+    long stepCount;
+    long runningStepCount;
+    long successStepCount;
+    long failureStepCount;
+    long stepExecutionTimeSeconds;
+    long stepExecutionTimeMicros;
+
+    public static TaskReportView of(TaskExecutionReport taskReport) {
+        return TaskReportView.builder()
+                .id(taskReport.getId())
+                .startDateTime(taskReport.getStartDateTime())
+                .endDateTime(taskReport.getEndDateTime())
+                .executionTimeSeconds(taskReport.getExecutionTimeSeconds())
+                .executionTimeMicros(taskReport.getExecutionTimeMicros())
+                .errorMessage(taskReport.getErrorMessage())
+                .status(taskReport.getStatus())
+                .taskStepExecutionReports(taskReport.getTaskStepExecutionReports() == null ? null
+                        : taskReport.getTaskStepExecutionReports().stream().map(StepReportView::of).toList())
+                .stepCount(taskReport.getStepCount())
+                .runningStepCount(taskReport.getRunningStepCount())
+                .successStepCount(taskReport.getSuccessStepCount())
+                .failureStepCount(taskReport.getFailureStepCount())
+                .stepExecutionTimeSeconds(taskReport.getStepExecutionTimeSeconds())
+                .stepExecutionTimeMicros(taskReport.getStepExecutionTimeMicros())
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.claytoncodingassessment.model.views;
+
+import com.example.claytoncodingassessment.model.entities.Task;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Read-only Task with its TaskReport, as returned by GET /tasks.
+ */
+@Value
+@Builder
+public class TaskView {
+
+    Long id;
+    String title;
+    TaskReportView taskExecutionReport;
+
+    public static TaskView of(Task task) {
+        return TaskView.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .taskExecutionReport(task.getTaskExecutionReport() == null ? null : TaskReportView.of(task.getTaskExecutionReport()))
+                .build();
+    }
+}
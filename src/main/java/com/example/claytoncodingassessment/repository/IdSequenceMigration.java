@@ -0,0 +1,41 @@
+package com.example.claytoncodingassessment.repository;
+
+import com.example.claytoncodingassessment.model.entities.IdSequences;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migration path for databases whose rows were keyed by IDENTITY columns before ids moved to sequences.
+ * The schema update creates each sequence starting at 1, which would collide with the existing ids, so on startup
+ * every sequence is restarted past the largest id in its table. A full allocation block is skipped because the pooled
+ * optimizer treats the value it reads as the top of its block.
+ * The old identity defaults on the id columns are left in place; they are never used once Hibernate supplies the id.
+ */
+@Slf4j
+@Component
+public class IdSequenceMigration {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;     // Only to run after the schema update has created the sequences.
+
+    @PostConstruct
+    public void restartSequences() {
+        for (IdSequences.IdSequence idSequence : IdSequences.ALL) {
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(" + idSequence.getIdColumn() + "), 0) from "
+                    + idSequence.getTableName(), Long.class);
+            if (maxId == null || maxId == 0) {
+                continue;
+            }
+            long restartWith = maxId + IdSequences.ALLOCATION_SIZE + 1;
+            jdbcTemplate.execute("alter sequence " + idSequence.getSequenceName() + " restart with " + restartWith);
+            log.info("Restarted sequence " + idSequence.getSequenceName() + " at " + restartWith + " past existing ids of "
+                    + idSequence.getTableName());
+        }
+    }
+}
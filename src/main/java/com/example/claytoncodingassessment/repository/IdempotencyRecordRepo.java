@@ -0,0 +1,25 @@
+package com.example.claytoncodingassessment.repository;
+
+import com.example.claytoncodingassessment.model.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+@Repository
+public interface IdempotencyRecordRepo extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdDateTime < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Has to be consumed inside a transaction and closed.
+     */
+    @Query("select r.requestKey from IdempotencyRecord r")
+    Stream<String> streamAllRequestKeys();
+}
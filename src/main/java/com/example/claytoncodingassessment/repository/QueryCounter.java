@@ -0,0 +1,32 @@
+package com.example.claytoncodingassessment.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * Registered as Hibernate's StatementInspector, so it sees every statement without turning on spring.jpa.show-sql.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Starts counting from zero on the current thread.
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * The number of statements prepared on the current thread since the last reset.
+     */
+    public static long count() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.claytoncodingassessment.repository;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.ReportSummary;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
+@Repository
+public interface ReportSummaryRepo extends JpaRepository<ReportSummary, Long> {
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<ReportSummary> findAllByTaskReportIdGreaterThanOrderByTaskReportIdAsc(Long taskReportId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<ReportSummary> findAllByStatusAndTaskReportIdGreaterThanOrderByTaskReportIdAsc(Status status, Long taskReportId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("""
+            select s from ReportSummary s
+            where s.executionTimeMicros > :executionTimeMicros
+               or (s.executionTimeMicros = :executionTimeMicros and s.taskReportId > :taskReportId)
+            order by s.executionTimeMicros asc, s.taskReportId asc
+            """)
+    List<ReportSummary> findAllOrderedByExecutionTimeAfter(@Param("executionTimeMicros") Long executionTimeMicros,
+                                                           @Param("taskReportId") Long taskReportId, Pageable pageable);
+}
@@ -1,9 +1,85 @@
 package com.example.claytoncodingassessment.repository;
 
+import com.example.claytoncodingassessment.model.Status;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface TaskExecutionReportRepo extends JpaRepository<TaskExecutionReport, Long> {
+
+    @EntityGraph(attributePaths = "taskStepExecutionReports")
+    Optional<TaskExecutionReport> findWithTaskStepExecutionReportsById(Long id);
+
+    /**
+     * Resolves a TaskReport only if it belongs to the given Task, by primary key and the task_id foreign key.
+     */
+    @Query("select r from TaskExecutionReport r where r.id = :taskReportId and r.taskId.id = :taskId")
+    Optional<TaskExecutionReport> findOwnedTaskReport(@Param("taskId") Long taskId, @Param("taskReportId") Long taskReportId);
+
+    /**
+     * As findOwnedTaskReport, but locks the row until the transaction ends, so writes to the step aggregates of one
+     * TaskReport run one after the other, each starting from the state the previous one committed.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from TaskExecutionReport r where r.id = :taskReportId and r.taskId.id = :taskId")
+    Optional<TaskExecutionReport> findOwnedTaskReportForUpdate(@Param("taskId") Long taskId, @Param("taskReportId") Long taskReportId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from TaskExecutionReport r where r.id = :id")
+    Optional<TaskExecutionReport> findForUpdateById(@Param("id") Long id);
+
+    /**
+     * The latest end time of the StepReports of a TaskReport, or null if none has ended.
+     */
+    @Query("select max(s.endDateTime) from TaskStepExecutionReport s where s.taskExecutionId.id = :taskReportId")
+    LocalDateTime findLatestStepEndDateTime(@Param("taskReportId") Long taskReportId);
+
+    /**
+     * A page of TaskReports ordered by id, each with its Task fetched in the same query.
+     */
+    @Query("select r from TaskExecutionReport r join fetch r.taskId where r.id > :id order by r.id asc")
+    List<TaskExecutionReport> findAllWithTaskByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    long countByStatus(Status status);
+
+    /**
+     * Initialises the StepReports of the given TaskReports in one query, the second phase of loading a page of them.
+     * A collection fetch join cannot be paged in SQL, so the page is read first and its collections fetched here by id.
+     */
+    @Query("select distinct r from TaskExecutionReport r left join fetch r.taskStepExecutionReports where r.id in :ids")
+    List<TaskExecutionReport> fetchTaskStepExecutionReports(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Forward-only cursor over the TaskReports that have an execution time, i.e. completed ones.
+     * Has to be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select r from TaskExecutionReport r where r.executionTimeMicros is not null")
+    Stream<TaskExecutionReport> streamCompleted();
 }
@@ -1,9 +1,16 @@
 package com.example.claytoncodingassessment.repository;
 
 import com.example.claytoncodingassessment.model.entities.Task;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TaskRepo extends JpaRepository<Task, Long> {
+
+    @EntityGraph(attributePaths = "taskExecutionReport")       // A to-one join, so the page limit still applies in SQL.
+    List<Task> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
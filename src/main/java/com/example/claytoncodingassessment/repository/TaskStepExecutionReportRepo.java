@@ -1,10 +1,97 @@
 package com.example.claytoncodingassessment.repository;
 
 
+import com.example.claytoncodingassessment.model.Status;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface TaskStepExecutionReportRepo extends JpaRepository<TaskStepExecutionReport, Long> {
+
+    List<TaskStepExecutionReport> findAllByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    long countByStatus(Status status);
+
+    /**
+     * Resolves the whole taskId -> taskReportId -> stepReportId chain in one query, fetching the owning TaskReport with the StepReport.
+     */
+    @Query("""
+            select s from TaskStepExecutionReport s
+            join fetch s.taskExecutionId r
+            where s.id = :stepReportId and r.id = :taskReportId and r.taskId.id = :taskId
+            """)
+    Optional<TaskStepExecutionReport> findOwnedStepReport(@Param("taskId") Long taskId,
+                                                          @Param("taskReportId") Long taskReportId,
+                                                          @Param("stepReportId") Long stepReportId);
+
+    /**
+     * Forward-only cursor over StepReports for exports. Has to be consumed inside a transaction and closed.
+     * Null filters are ignored; the start-time range is half-open [from, to).
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            select s from TaskStepExecutionReport s
+            where (:status is null or s.status = :status)
+              and (:from is null or s.startDateTime >= :from)
+              and (:to is null or s.startDateTime < :to)
+            order by s.id asc
+            """)
+    Stream<TaskStepExecutionReport> streamAllForExport(@Param("status") Status status,
+                                                       @Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    /**
+     * Forward-only cursor over the SUCCESS StepReports that completed at or after since, oldest first.
+     * Has to be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("""
+            select s from TaskStepExecutionReport s
+            where s.status = com.example.claytoncodingassessment.model.Status.SUCCESS
+              and s.endDateTime >= :since
+            order by s.endDateTime asc
+            """)
+    Stream<TaskStepExecutionReport> streamCompletedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * The StepReports with the longest execution time in each of the given TaskReports, lowest id first among ties.
+     * The time is in microseconds, or whole seconds for StepReports written before microsecond timing.
+     */
+    @Query("""
+            select s from TaskStepExecutionReport s
+            where s.taskExecutionId.id in :taskReportIds
+              and coalesce(s.executionTimeMicros, s.executionTimeSeconds * 1000000) = (
+                  select max(coalesce(o.executionTimeMicros, o.executionTimeSeconds * 1000000)) from TaskStepExecutionReport o
+                  where o.taskExecutionId = s.taskExecutionId)
+            order by s.id asc
+            """)
+    List<TaskStepExecutionReport> findSlowestStepReports(@Param("taskReportIds") Collection<Long> taskReportIds);
 }
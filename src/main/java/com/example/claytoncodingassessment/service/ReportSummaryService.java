@@ -0,0 +1,46 @@
+package com.example.claytoncodingassessment.service;
+
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.ReportSummary;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+
+/**
+ * This service serves the TaskReport lists from the report_summary read model and rebuilds it from the TaskReports.
+ */
+public interface ReportSummaryService {
+
+    /**
+     * Returns one page of ReportSummaries ordered by TaskReport id, starting after the given cursor.
+     * @param after
+     * @param limit
+     * @return
+     * @throws InvalidCursorException
+     */
+    CursorPage<ReportSummary> getAllReportSummaries(String after, int limit) throws InvalidCursorException;
+
+    /**
+     * Returns one page of ReportSummaries with given status ordered by TaskReport id, starting after the given cursor.
+     * @param status
+     * @param after
+     * @param limit
+     * @return
+     * @throws InvalidCursorException
+     */
+    CursorPage<ReportSummary> getAllReportSummariesByStatus(Status status, String after, int limit) throws InvalidCursorException;
+
+    /**
+     * Returns one page of ReportSummaries ordered by execution time (fastest to slowest), starting after the given cursor.
+     * @param after
+     * @param limit
+     * @return
+     * @throws InvalidCursorException
+     */
+    CursorPage<ReportSummary> getAllReportSummariesOrderedByExeTime(String after, int limit) throws InvalidCursorException;
+
+    /**
+     * Replaces every ReportSummary with one recomputed from its TaskReport, Task and StepReports.
+     * @return the number of ReportSummaries written
+     */
+    long rebuildReportSummaries();
+}
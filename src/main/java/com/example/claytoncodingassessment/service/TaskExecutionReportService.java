@@ -1,10 +1,8 @@
 package com.example.claytoncodingassessment.service;
 
-import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.AggregateConsistencyReport;
+import com.example.claytoncodingassessment.model.ServiceResult;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
-import com.example.claytoncodingassessment.service.exceptions.AlreadySuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
 
 import java.util.List;
 import java.util.Optional;
@@ -20,27 +18,17 @@ public interface TaskExecutionReportService {
      *
      * @param taskId
      * @param taskExecutionReport
-     * @return
-     * @throws NoSuchTaskException
-     * @throws AlreadySuchTaskException
-     */
-    TaskExecutionReport createTaskExecutionReport(Long taskId, TaskExecutionReport taskExecutionReport) throws NoSuchTaskException, AlreadySuchTaskException;
-
-    /**
-     * Returns all TaskExecutionReports from the database.
-     * @return
+     * @return the created TaskReport, NOT_FOUND if there is no such Task, or CONFLICT if the Task already has a TaskReport
      */
-    List<TaskExecutionReport> getAllTaskExecutionReports();
+    ServiceResult<TaskExecutionReport> createTaskExecutionReport(Long taskId, TaskExecutionReport taskExecutionReport);
 
     /**
      * Gets the taskId and taskReportId and then returns the corresponding TaskReport.
      * @param taskId
      * @param taskReportId
      * @return
-     * @throws NoSuchTaskException
-     * @throws NoSuchTaskReportException
      */
-    TaskExecutionReport getTaskExecutionReport(Long taskId, Long taskReportId) throws NoSuchTaskException, NoSuchTaskReportException;
+    ServiceResult<TaskExecutionReport> getTaskExecutionReport(Long taskId, Long taskReportId);
 
     /**
      * Updates an existing TaskReport in the database.
@@ -48,32 +36,33 @@ public interface TaskExecutionReportService {
      * @param taskReportId
      * @param taskExecutionReport
      * @return
-     * @throws NoSuchTaskException
-     * @throws NoSuchTaskReportException
      */
-    TaskExecutionReport updateTaskExecutionReport(Long taskId, Long taskReportId, TaskExecutionReport taskExecutionReport) throws NoSuchTaskException, NoSuchTaskReportException;
+    ServiceResult<TaskExecutionReport> updateTaskExecutionReport(Long taskId, Long taskReportId, TaskExecutionReport taskExecutionReport);
 
     /**
      * Deletes an existing TaskReport from the database.
      * @param taskId
      * @param taskReportId
-     * @throws NoSuchTaskException
-     * @throws NoSuchTaskReportException
+     * @return the deleted TaskReport
      */
-    void deleteTaskExecutionReport(Long taskId, Long taskReportId) throws NoSuchTaskException, NoSuchTaskReportException;
+    ServiceResult<TaskExecutionReport> deleteTaskExecutionReport(Long taskId, Long taskReportId);
 
     /**
-     * Returns all TaskReports with given status.
-     * @param status
+     * Returns the TaskReports with the given ids and their StepReports, loaded with one query, in the order of ids.
+     * Ids without a TaskReport are skipped.
+     * @param ids
      * @return
      */
-    List<TaskExecutionReport> getAllTaskExecutionReportsByStatus(Status status);
+    List<TaskExecutionReport> getTaskExecutionReports(List<Long> ids);
 
     /**
-     * Returns all TaskReports ordered by execution time (fastest to slowest).
+     * Compares the step aggregates stored on a TaskReport against a full recompute from its StepReports.
+     * When repair is set, out of date aggregates are overwritten with the recomputed values.
+     * @param taskReportId
+     * @param repair
      * @return
      */
-    List<TaskExecutionReport> getAllTaskExecutionReportsOrderedByExeTime();
+    ServiceResult<AggregateConsistencyReport> checkAggregateConsistency(Long taskReportId, boolean repair);
 
     /**
      * Returns a TaskReport given its id.
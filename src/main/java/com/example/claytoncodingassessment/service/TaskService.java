@@ -1,8 +1,9 @@
 package com.example.claytoncodingassessment.service;
 
+import com.example.claytoncodingassessment.model.CursorPage;
 import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
 
-import java.util.List;
 import java.util.Optional;
 
 /**
@@ -19,11 +20,14 @@ public interface TaskService {
     Task createTask(Task task);
 
     /**
-     * Returns all tasks from the database.
+     * Returns one page of tasks ordered by id, starting after the given cursor.
      *
+     * @param after
+     * @param limit
      * @return
+     * @throws InvalidCursorException
      */
-    List<Task> getAllTasks();
+    CursorPage<Task> getAllTasks(String after, int limit) throws InvalidCursorException;
 
     /**
      * Returns one task found by its specific id.
@@ -1,12 +1,15 @@
 package com.example.claytoncodingassessment.service;
 
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.ServiceResult;
+import com.example.claytoncodingassessment.model.Status;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchStepReportException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * This service implements the CRUD operations for the TaskStepExecutionReport resource.
@@ -16,76 +19,93 @@ public interface TaskStepExecutionReportService {
     /**
      * Gets the taskId and TaskReport and creates a corresponding StepReport.
      * Persists a new resource to the database with stepName, status and errorMessage in the body.
+     * With the write-behind queue enabled the StepReport is only validated and given its id here, and the result is ACCEPTED,
+     * or UNAVAILABLE when the queue is full.
      * @param taskId
      * @param taskReportId
      * @param taskStepExecutionReport
      * @return
-     * @throws NoSuchTaskException
-     * @throws NoSuchTaskReportException
      */
-    TaskStepExecutionReport createTaskStepExecutionReport(Long taskId, Long taskReportId, TaskStepExecutionReport taskStepExecutionReport) throws NoSuchTaskException, NoSuchTaskReportException;
+    ServiceResult<TaskStepExecutionReport> createTaskStepExecutionReport(Long taskId, Long taskReportId, TaskStepExecutionReport taskStepExecutionReport);
 
     /**
-     * Returns all TaskStepExecutionReports from the database.
+     * Gets the taskId and TaskReport and creates all the given StepReports in one batch.
+     * The TaskReport status and execution time are recomputed once for the whole batch.
+     * @param taskId
+     * @param taskReportId
+     * @param taskStepExecutionReports
+     * @return
+     */
+    ServiceResult<List<TaskStepExecutionReport>> createTaskStepExecutionReports(Long taskId, Long taskReportId, List<TaskStepExecutionReport> taskStepExecutionReports);
+
+    /**
+     * Returns one page of TaskStepExecutionReports ordered by id, starting after the given cursor.
+     * @param after
+     * @param limit
      * @return
+     * @throws InvalidCursorException
      */
-    List<TaskStepExecutionReport> getAllTaskStepExecutionReports();
+    CursorPage<TaskStepExecutionReport> getAllTaskStepExecutionReports(String after, int limit) throws InvalidCursorException;
+
+    /**
+     * Writes every StepReport matching the optional filters to the output stream as newline-delimited JSON,
+     * one row at a time, so memory use does not depend on the number of rows.
+     * @param status
+     * @param from inclusive lower bound on startDateTime
+     * @param to exclusive upper bound on startDateTime
+     * @param outputStream
+     * @throws IOException
+     */
+    void exportTaskStepExecutionReports(Status status, LocalDateTime from, LocalDateTime to, OutputStream outputStream) throws IOException;
 
     /**
      * Gets the taskId, taskReportId and stepReportId and returns the corresponding StepReport.
-      * @param taskId
+     * @param taskId
      * @param taskReportId
      * @param stepReportId
      * @return
-     * @throws Exception
      */
-    TaskStepExecutionReport getTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId) throws Exception;
+    ServiceResult<TaskStepExecutionReport> getTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId);
 
     /**
      * Updates an existing StepReport in the database.
+     * With the write-behind queue enabled the update is queued as for a create. An update whose sequenceNumber is not
+     * after the stored one is IGNORED, with the stored StepReport as its value.
      * @param taskId
      * @param taskReportId
      * @param stepReportId
      * @param taskStepExecutionReport
      * @return
-     * @throws NoSuchTaskException
-     * @throws NoSuchTaskReportException
-     * @throws NoSuchStepReportException
      */
-    TaskStepExecutionReport updateTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId, TaskStepExecutionReport taskStepExecutionReport) throws NoSuchTaskException, NoSuchTaskReportException, NoSuchStepReportException;
+    ServiceResult<TaskStepExecutionReport> updateTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId, TaskStepExecutionReport taskStepExecutionReport);
 
     /**
      * Deletes an existing StepReport from the database.
      * @param taskId
      * @param taskReportId
      * @param stepReportId
-     * @throws NoSuchTaskException
-     * @throws NoSuchTaskReportException
-     * @throws NoSuchStepReportException
+     * @return the deleted StepReport
      */
-    void  deleteTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId) throws NoSuchTaskException, NoSuchTaskReportException, NoSuchStepReportException;
+    ServiceResult<TaskStepExecutionReport> deleteTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId);
 
     /**
      * Returns all StepReports for a given TaskReport ordered by StartDateTime.
      * @param taskReportId
      * @return
-     * @throws NoSuchTaskReportException
      */
-    List<TaskStepExecutionReport> getAllTaskStepExecutionReportsSortedByStartDateTime(Long taskReportId) throws NoSuchTaskReportException;
+    ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportsSortedByStartDateTime(Long taskReportId);
 
     /**
      * Returns all StepReports for a given TaskReport ordered by execution time.
      * @param taskReportId
      * @return
-     * @throws NoSuchTaskReportException
      */
-    List<TaskStepExecutionReport> getAllTaskStepExecutionReportsSortedByExeTime(Long taskReportId) throws NoSuchTaskReportException;
+    ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportsSortedByExeTime(Long taskReportId);
 
     /**
      * Returns all StepReports for a given TaskReport unordered.
      * @param taskReportId
      * @return
-     * @throws NoSuchTaskReportException
      */
-    List<TaskStepExecutionReport> getAllTaskStepExecutionReportGivenTaskExecutionReport(Long taskReportId) throws NoSuchTaskReportException;
+    ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportGivenTaskExecutionReport(Long taskReportId);
 }
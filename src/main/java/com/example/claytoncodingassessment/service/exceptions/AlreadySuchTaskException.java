@@ -1,7 +0,0 @@
-package com.example.claytoncodingassessment.service.exceptions;
-
-public class AlreadySuchTaskException extends Exception {
-    public AlreadySuchTaskException(String message, Throwable cause) {
-        super(message, cause);
-    }
-}
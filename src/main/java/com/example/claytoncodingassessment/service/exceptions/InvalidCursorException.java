@@ -0,0 +1,7 @@
+package com.example.claytoncodingassessment.service.exceptions;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
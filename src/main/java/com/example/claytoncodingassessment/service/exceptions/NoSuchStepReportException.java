@@ -1,7 +0,0 @@
-package com.example.claytoncodingassessment.service.exceptions;
-
-public class NoSuchStepReportException extends Exception {
-    public NoSuchStepReportException(String message, Throwable cause) {
-        super(message, cause);
-    }
-}
@@ -1,7 +0,0 @@
-package com.example.claytoncodingassessment.service.exceptions;
-
-public class NoSuchTaskException extends Exception {
-    public NoSuchTaskException(String message, Throwable cause) {
-        super(message, cause);
-    }
-}
@@ -1,7 +0,0 @@
-package com.example.claytoncodingassessment.service.exceptions;
-
-public class NoSuchTaskReportException extends Exception {
-    public NoSuchTaskReportException(String message, Throwable cause) {
-        super(message, cause);
-    }
-}
@@ -0,0 +1,73 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import lombok.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset position after the last row of a page: the sort key, if the list is not ordered by id alone, and the id.
+ * Clients only ever see the encoded form.
+ */
+@Value
+class Cursor {
+
+    static final Cursor FIRST = new Cursor(Long.MIN_VALUE, 0L);
+
+    Long sortKey;
+    Long id;
+
+    static Cursor of(Long id) {
+        return new Cursor(null, id);
+    }
+
+    String encode() {
+        String key = sortKey == null ? String.valueOf(id) : sortKey + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor, returning FIRST for a missing one.
+     */
+    static Cursor decode(String cursor) throws InvalidCursorException {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(':');
+            if (separator < 0) {
+                return of(Long.parseLong(key));
+            }
+            return new Cursor(Long.parseLong(key.substring(0, separator)), Long.parseLong(key.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor passed.", e);
+        }
+    }
+
+    /**
+     * Requests one row more than the page size, so a following page can be detected without a count query.
+     */
+    static Pageable pageable(int limit) {
+        return PageRequest.of(0, pageSize(limit) + 1);
+    }
+
+    static <T> CursorPage<T> page(List<T> rows, int limit, Function<T, Cursor> cursorOf) {
+        int pageSize = pageSize(limit);
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, CursorPage.MAX_LIMIT));
+    }
+}
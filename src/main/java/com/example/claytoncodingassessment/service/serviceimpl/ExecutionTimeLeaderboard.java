@@ -0,0 +1,281 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.LeaderboardEntry;
+import com.example.claytoncodingassessment.model.LeaderboardOrder;
+import com.example.claytoncodingassessment.model.TaskReportChanged;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of the completed TaskReports ordered by (executionTimeMicros, id), for fastest-N, slowest-N and
+ * rank-of-report queries in O(log n) (plus N for the lists).
+ * The index is an order-statistic treap: a binary search tree kept balanced in expectation by random priorities,
+ * with the size of every subtree stored in its root so a rank or a position can be found on one root-to-leaf path.
+ * It is moved along by the committed TaskReportChanged events, which carry the execution time updateTime has just set
+ * or cleared, and rebuilt from the TaskReports on startup.
+ */
+@Slf4j
+@Component
+public class ExecutionTimeLeaderboard implements MeterBinder {
+
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Long> executionTimes = new HashMap<>();      // TaskReport id -> its key in the tree.
+    private final Random priorities = new Random();
+    private Node root;
+
+    /**
+     * Runs before the web server starts, so no live change can be missed or applied twice.
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            executionTimes.clear();
+            root = null;
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<TaskExecutionReport> taskReports = taskExecutionReportRepo.streamCompleted()) {
+                    Iterator<TaskExecutionReport> iterator = taskReports.iterator();
+                    while (iterator.hasNext()) {
+                        TaskExecutionReport r = iterator.next();
+                        put(r.getId(), r.getExecutionTimeMicros());
+                        entityManager.detach(r);
+                    }
+                }
+            });
+            log.info("Rebuilt the execution time leaderboard from " + executionTimes.size() + " completed TaskReports");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs after the publishing transaction has committed, so a rolled back write never moves the leaderboard.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskReportChanged(TaskReportChanged event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == TaskReportChanged.Type.DELETED || event.getExecutionTimeMicros() == null) {
+                remove(event.getTaskReportId());
+            } else {
+                put(event.getTaskReportId(), event.getExecutionTimeMicros());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The limit fastest or slowest completed TaskReports, fastest or slowest first.
+     */
+    public List<LeaderboardEntry> leaders(LeaderboardOrder order, int limit) {
+        lock.readLock().lock();
+        try {
+            int size = size(root);
+            int count = Math.max(0, Math.min(limit, size));
+            int from = order == LeaderboardOrder.FASTEST ? 0 : size - count;
+            List<LeaderboardEntry> entries = new ArrayList<>(count);
+            collect(root, from, from + count, 0, entries);
+            if (order == LeaderboardOrder.SLOWEST) {
+                Collections.reverse(entries);
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The place of the TaskReport with taskReportId, or empty if it has not completed.
+     */
+    public Optional<LeaderboardEntry> rank(Long taskReportId) {
+        lock.readLock().lock();
+        try {
+            Long executionTimeMicros = executionTimes.get(taskReportId);
+            if (executionTimeMicros == null) {
+                return Optional.empty();
+            }
+            return Optional.of(LeaderboardEntry.builder()
+                    .taskReportId(taskReportId)
+                    .executionTimeMicros(executionTimeMicros)
+                    .rank(countLess(root, executionTimeMicros, taskReportId) + 1)
+                    .build());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("report.leaderboard.size", this, ExecutionTimeLeaderboard::size)
+                .description("Completed TaskReports in the execution time leaderboard")
+                .register(meterRegistry);
+    }
+
+    // Treap operations, all called with the lock held.
+
+    private void put(Long id, long executionTimeMicros) {
+        Long previous = executionTimes.put(id, executionTimeMicros);
+        if (previous != null) {
+            if (previous == executionTimeMicros) {
+                return;
+            }
+            root = delete(root, previous, id);
+        }
+        Node[] split = split(root, executionTimeMicros, id);
+        root = merge(merge(split[0], new Node(executionTimeMicros, id, priorities.nextInt())), split[1]);
+    }
+
+    private void remove(Long id) {
+        Long previous = executionTimes.remove(id);
+        if (previous != null) {
+            root = delete(root, previous, id);
+        }
+    }
+
+    /**
+     * Splits node into the keys before (executionTimeMicros, id) and the rest.
+     */
+    private static Node[] split(Node node, long executionTimeMicros, long id) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.isBefore(executionTimeMicros, id)) {
+            Node[] split = split(node.right, executionTimeMicros, id);
+            node.right = split[0];
+            split[0] = node.update();
+            return split;
+        }
+        Node[] split = split(node.left, executionTimeMicros, id);
+        node.left = split[1];
+        split[1] = node.update();
+        return split;
+    }
+
+    /**
+     * Joins two treaps whose keys are all ordered left before right.
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null || right == null) {
+            return left == null ? right : left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static Node delete(Node node, long executionTimeMicros, long id) {
+        if (node == null) {
+            return null;
+        }
+        if (node.executionTimeMicros == executionTimeMicros && node.id == id) {
+            return merge(node.left, node.right);
+        }
+        if (node.isBefore(executionTimeMicros, id)) {
+            node.right = delete(node.right, executionTimeMicros, id);
+        } else {
+            node.left = delete(node.left, executionTimeMicros, id);
+        }
+        return node.update();
+    }
+
+    private static long countLess(Node node, long executionTimeMicros, long id) {
+        long count = 0;
+        while (node != null) {
+            if (node.isBefore(executionTimeMicros, id)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the entries at positions [from, to) of node, whose first position is offset, in order.
+     */
+    private static void collect(Node node, int from, int to, int offset, List<LeaderboardEntry> entries) {
+        if (node == null || from >= to) {
+            return;
+        }
+        int position = offset + size(node.left);
+        if (from < position) {
+            collect(node.left, from, Math.min(to, position), offset, entries);
+        }
+        if (from <= position && position < to) {
+            entries.add(LeaderboardEntry.builder()
+                    .taskReportId(node.id)
+                    .executionTimeMicros(node.executionTimeMicros)
+                    .rank(position + 1)
+                    .build());
+        }
+        if (to > position + 1) {
+            collect(node.right, Math.max(from, position + 1), to, position + 1, entries);
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+
+        private final long executionTimeMicros;
+        private final long id;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long executionTimeMicros, long id, int priority) {
+            this.executionTimeMicros = executionTimeMicros;
+            this.id = id;
+            this.priority = priority;
+        }
+
+        private boolean isBefore(long executionTimeMicros, long id) {
+            return this.executionTimeMicros < executionTimeMicros || (this.executionTimeMicros == executionTimeMicros && this.id < id);
+        }
+
+        private Node update() {
+            size = 1 + ExecutionTimeLeaderboard.size(left) + ExecutionTimeLeaderboard.size(right);
+            return this;
+        }
+    }
+}
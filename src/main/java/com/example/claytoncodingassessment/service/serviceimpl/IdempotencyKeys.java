@@ -0,0 +1,192 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.entities.IdempotencyRecord;
+import com.example.claytoncodingassessment.repository.IdempotencyRecordRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Responses of writes sent with an Idempotency-Key, looked up in three tiers: a Bloom filter over every stored key, so a
+ * new key is recognised without any lookup; a bounded LRU of recent responses; and the IdempotencyRecord table, which
+ * keeps responses for idempotency.retention and survives restarts.
+ * Expired records are purged and the Bloom filter is rebuilt from the table on startup, and again whenever the filter
+ * holds more than idempotency.bloom-capacity keys.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeys {
+
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    @Value("${idempotency.retention:24h}")
+    private Duration retention;
+    @Value("${idempotency.cache-size:10000}")
+    private int cacheSize;
+    @Value("${idempotency.bloom-capacity:100000}")
+    private int bloomCapacity;
+
+    @Autowired
+    private IdempotencyRecordRepo idempotencyRecordRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private Cache<String, IdempotencyRecord> recentRecords;
+    private volatile BloomFilter storedKeys;
+
+    @PostConstruct
+    public void init() {
+        recentRecords = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+        rebuild();
+    }
+
+    /**
+     * The stored response to requestKey, if any. Only a possible Bloom filter match that misses the LRU reaches the database.
+     */
+    public Optional<IdempotencyRecord> find(String requestKey) {
+        if (!storedKeys.mightContain(requestKey)) {
+            return Optional.empty();
+        }
+        IdempotencyRecord record = recentRecords.getIfPresent(requestKey);
+        if (record == null) {
+            record = idempotencyRecordRepo.findById(requestKey).orElse(null);
+            if (record == null || record.getCreatedDateTime().isBefore(LocalDateTime.now().minus(retention))) {
+                return Optional.empty();
+            }
+            recentRecords.put(requestKey, record);
+        }
+        return Optional.of(record);
+    }
+
+    /**
+     * Claims requestKey for a request about to run.
+     *
+     * @return false if another request with the same key is still running
+     */
+    public boolean begin(String requestKey) {
+        return inFlight.add(requestKey);
+    }
+
+    /**
+     * Stores the response of a claimed request and releases the key.
+     */
+    public void complete(IdempotencyRecord record) {
+        try {
+            record.setCreatedDateTime(LocalDateTime.now());
+            idempotencyRecordRepo.save(record);
+            recentRecords.put(record.getRequestKey(), record);
+            synchronized (this) {       // Keeps a concurrent rebuild from swapping in a filter that misses this key.
+                if (!storedKeys.add(record.getRequestKey())) {
+                    rebuild();
+                }
+            }
+        } finally {
+            inFlight.remove(record.getRequestKey());
+        }
+    }
+
+    /**
+     * Releases a claimed key without storing a response, so a retry runs the request again.
+     */
+    public void abandon(String requestKey) {
+        inFlight.remove(requestKey);
+    }
+
+    /**
+     * Purges expired records and refills the Bloom filter from the ones left. The filter is sized for at least twice
+     * the keys left, so a table that outgrew idempotency.bloom-capacity does not trigger a rebuild on every write.
+     */
+    public synchronized void rebuild() {
+        storedKeys = transactionTemplate.execute(status -> {
+            int purged = idempotencyRecordRepo.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+            long stored = idempotencyRecordRepo.count();
+            BloomFilter bloomFilter = new BloomFilter((int) Math.min(Integer.MAX_VALUE / 16, Math.max(bloomCapacity, 2 * stored)),
+                    BLOOM_FALSE_POSITIVE_RATE);
+            try (Stream<String> requestKeys = idempotencyRecordRepo.streamAllRequestKeys()) {
+                Iterator<String> iterator = requestKeys.iterator();
+                while (iterator.hasNext()) {
+                    bloomFilter.add(iterator.next());
+                }
+            }
+            log.info("Rebuilt the Idempotency-Key filter from " + stored + " stored keys after purging " + purged + " expired ones");
+            return bloomFilter;
+        });
+    }
+
+    /**
+     * Fixed-size Bloom filter over the UTF-8 bytes of the keys, indexed by double hashing of one 64-bit FNV-1a hash.
+     */
+    private static final class BloomFilter {
+
+        private final long[] words;
+        private final long bitCount;
+        private final int hashCount;
+        private final int capacity;
+        private int size;
+
+        private BloomFilter(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            bitCount = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+            hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            words = new long[(int) ((bitCount + 63) / 64)];
+        }
+
+        /**
+         * @return false once the filter holds more keys than it was sized for
+         */
+        private synchronized boolean add(String key) {
+            long hash = hash(key);
+            long step = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash + i * step, bitCount);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            return ++size <= capacity;
+        }
+
+        private synchronized boolean mightContain(String key) {
+            long hash = hash(key);
+            long step = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash + i * step, bitCount);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long hash) {
+            hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
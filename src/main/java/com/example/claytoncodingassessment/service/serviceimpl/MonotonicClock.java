@@ -0,0 +1,40 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Wall-clock time that never goes backwards within the JVM. The wall clock is read once and then advanced by
+ * System.nanoTime, so NTP steps cannot make a step duration negative or skew it. Durations whose start was stamped by
+ * an earlier run of the application still fall back on the wall clock across the restart.
+ */
+public final class MonotonicClock extends Clock {
+
+    public static final MonotonicClock INSTANCE = new MonotonicClock(ZoneId.systemDefault(), Instant.now(), System.nanoTime());
+
+    private final ZoneId zone;
+    private final Instant origin;
+    private final long originNanos;
+
+    private MonotonicClock(ZoneId zone, Instant origin, long originNanos) {
+        this.zone = zone;
+        this.origin = origin;
+        this.originNanos = originNanos;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new MonotonicClock(zone, origin, originNanos);
+    }
+
+    @Override
+    public Instant instant() {
+        return origin.plusNanos(System.nanoTime() - originNanos);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.ReportEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Pushes committed ReportEvents to Server-Sent Events subscribers.
+ * Publishing only offers the event to each matching subscriber's bounded buffer and never waits on a client;
+ * the buffers are sent by a fixed pool of sender threads. A subscriber whose buffer overflows, or whose send has been
+ * blocked for longer than send-timeout, is disconnected and its send interrupted, and is expected to re-read the
+ * current state when it reconnects.
+ */
+@Slf4j
+@Component
+public class ReportEventBroadcaster implements MeterBinder {
+
+    @Value("${events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+    @Value("${events.sender-threads:4}")
+    private int senderThreads;
+    @Value("${events.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong eventIds = new AtomicLong();
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void init() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("report-event-sender-");
+        threadFactory.setDaemon(true);
+        senders = Executors.newFixedThreadPool(senderThreads, threadFactory);
+    }
+
+    /**
+     * Opens a stream of the events matching filter. The stream ends at the MVC async request timeout.
+     */
+    public SseEmitter subscribe(Predicate<ReportEvent> filter) {
+        return register(new SseEmitter(), filter, null);
+    }
+
+    /**
+     * Opens a stream of one TaskReport's events, which ends after the TaskReport's delete event or at the MVC async
+     * request timeout.
+     */
+    public SseEmitter subscribe(Long taskReportId) {
+        return register(new SseEmitter(), event -> taskReportId.equals(event.getTaskReportId()), taskReportId);
+    }
+
+    SseEmitter register(SseEmitter emitter, Predicate<ReportEvent> filter, Long taskReportId) {
+        Subscriber subscriber = new Subscriber(emitter, filter, taskReportId, new ArrayBlockingQueue<>(subscriberBuffer));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Runs after the publishing transaction has committed, or straight away when there was none, so a rolled back
+     * write is never announced.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportEvent(ReportEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.filter.test(event)) {
+                continue;
+            }
+            if (subscriber.isSendOverdue(sendTimeout)) {
+                disconnect(subscriber, "send blocked for longer than " + sendTimeout);
+            } else if (subscriber.buffer.offer(event)) {
+                schedule(subscriber);
+            } else {
+                disconnect(subscriber, "buffer of " + subscriberBuffer + " events overflowed");
+            }
+        }
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("report.events.subscribers", this, ReportEventBroadcaster::size)
+                .description("Open Server-Sent Events streams of ReportEvents")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(this::end);
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    /**
+     * At most one task per subscriber is ever queued, so the pool's queue is bounded by the number of subscribers.
+     */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    /**
+     * Sends the buffer until it is empty. At most one send runs per subscriber, so its events keep their order.
+     */
+    private void send(Subscriber subscriber) {
+        do {
+            ReportEvent event;
+            while (!subscriber.ended && (event = subscriber.buffer.poll()) != null) {
+                boolean sent;
+                subscriber.startSend();
+                try {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(eventIds.incrementAndGet()))
+                            .name(event.getType().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    sent = true;
+                } catch (IOException | IllegalStateException e) {
+                    sent = false;
+                } finally {
+                    subscriber.endSend();
+                }
+                if (!sent) {
+                    subscribers.remove(subscriber);     // The client has gone away, or end() interrupted the send.
+                    if (subscriber.ended) {
+                        subscriber.emitter.complete();
+                    }
+                    return;
+                }
+                if (subscriber.isLastEvent(event)) {
+                    subscribers.remove(subscriber);
+                    subscriber.ended = true;
+                    subscriber.emitter.complete();
+                    return;
+                }
+            }
+            if (subscriber.ended) {
+                subscriber.emitter.complete();      // Left to this thread by end(), as the emitter was locked by the send.
+                return;
+            }
+            subscriber.sending.set(false);
+        } while (!subscriber.buffer.isEmpty() && subscriber.sending.compareAndSet(false, true));
+        if (subscriber.ended && subscriber.sending.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void disconnect(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            log.warn("Disconnected a ReportEvent subscriber: " + reason);
+            end(subscriber);
+        }
+    }
+
+    /**
+     * Completes the emitter without waiting on a send in flight, which holds the emitter's lock: that send is
+     * interrupted instead, and its sender thread completes the emitter once it returns.
+     */
+    private void end(Subscriber subscriber) {
+        subscriber.ended = true;
+        if (subscriber.sending.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        } else {
+            subscriber.interruptSend();
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Predicate<ReportEvent> filter;
+        private final Long taskReportId;
+        private final BlockingQueue<ReportEvent> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean ended;
+        private Thread sender;
+        private long sendStartedNanos;
+
+        private Subscriber(SseEmitter emitter, Predicate<ReportEvent> filter, Long taskReportId, BlockingQueue<ReportEvent> buffer) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.taskReportId = taskReportId;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Whether event deleted the TaskReport this stream follows, after which nothing more can be sent on it.
+         */
+        private boolean isLastEvent(ReportEvent event) {
+            return event.getType() == ReportEvent.Type.TASK_REPORT_DELETED && event.getTaskReportId().equals(taskReportId);
+        }
+
+        private synchronized void startSend() {
+            sender = Thread.currentThread();
+            sendStartedNanos = System.nanoTime();
+        }
+
+        /**
+         * Also clears an interrupt from interruptSend(), so it cannot reach the next subscriber served by this thread.
+         */
+        private synchronized void endSend() {
+            sender = null;
+            Thread.interrupted();
+        }
+
+        private synchronized void interruptSend() {
+            if (sender != null) {
+                sender.interrupt();
+            }
+        }
+
+        private synchronized boolean isSendOverdue(Duration sendTimeout) {
+            return sender != null && System.nanoTime() - sendStartedNanos > sendTimeout.toNanos();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.config.MetricsConfig;
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.TaskReportChanged;
+import com.example.claytoncodingassessment.model.entities.ReportSummary;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import com.example.claytoncodingassessment.repository.ReportSummaryRepo;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import com.example.claytoncodingassessment.service.ReportSummaryService;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the report_summary read model in step with the TaskReports and serves the TaskReport lists from it.
+ * The projection listens to the domain events synchronously, inside the transaction of the write that published them,
+ * so a ReportSummary commits or rolls back with its TaskReport and the lists never lag behind a write.
+ * The slowest StepReport is tracked from the step events and only recomputed with a query when the current slowest
+ * one is deleted or gets faster.
+ */
+@Slf4j
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ReportSummaryServiceImpl implements ReportSummaryService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private ReportSummaryRepo reportSummaryRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Backfills the read model on startup when it does not hold exactly one row per TaskReport, e.g. on a database
+     * written before it existed.
+     */
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (reportSummaryRepo.count() != taskExecutionReportRepo.count()) {
+                rebuildReportSummaries();
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReportSummary> getAllReportSummaries(String after, int limit) throws InvalidCursorException {
+        Cursor cursor = Cursor.decode(after);
+        return Cursor.page(reportSummaryRepo.findAllByTaskReportIdGreaterThanOrderByTaskReportIdAsc(cursor.getId(), Cursor.pageable(limit)),
+                limit, s -> Cursor.of(s.getTaskReportId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReportSummary> getAllReportSummariesByStatus(Status status, String after, int limit) throws InvalidCursorException {
+        Cursor cursor = Cursor.decode(after);
+        return Cursor.page(reportSummaryRepo.findAllByStatusAndTaskReportIdGreaterThanOrderByTaskReportIdAsc(status, cursor.getId(), Cursor.pageable(limit)),
+                limit, s -> Cursor.of(s.getTaskReportId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReportSummary> getAllReportSummariesOrderedByExeTime(String after, int limit) throws InvalidCursorException {
+        Cursor cursor = Cursor.decode(after);
+        if (cursor.getSortKey() == null) {
+            throw new InvalidCursorException("Cursor passed does not belong to a list sorted by execTime.", new Throwable());
+        }
+        return Cursor.page(reportSummaryRepo.findAllOrderedByExecutionTimeAfter(cursor.getSortKey(), cursor.getId(), Cursor.pageable(limit)),
+                limit, s -> new Cursor(s.getExecutionTimeMicros(), s.getTaskReportId()));
+    }
+
+    /**
+     * Reads the TaskReports in batches of REBUILD_BATCH_SIZE, each with its Task and its slowest StepReports in two queries.
+     * The persistence context is flushed and cleared after every batch, so callers should not hold on to managed entities.
+     */
+    @Override
+    @Transactional
+    public long rebuildReportSummaries() {
+        reportSummaryRepo.deleteAllInBatch();
+        long rebuilt = 0;
+        List<TaskExecutionReport> taskReports;
+        Long after = 0L;
+        do {
+            taskReports = taskExecutionReportRepo.findAllWithTaskByIdGreaterThan(after, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (taskReports.isEmpty()) {
+                break;
+            }
+            Map<Long, TaskStepExecutionReport> slowestStepReports = slowestStepReports(taskReports.stream().map(TaskExecutionReport::getId).toList());
+            for (TaskExecutionReport r : taskReports) {
+                ReportSummary reportSummary = ReportSummary.builder()
+                        .taskReportId(r.getId())
+                        .taskId(r.getTaskId().getId())
+                        .taskTitle(r.getTaskId().getTitle())
+                        .build();
+                copyTaskReport(reportSummary, r.getStatus(), r.getStartDateTime(), r.getEndDateTime(), r.getExecutionTimeSeconds(), r.getExecutionTimeMicros());
+                reportSummary.setStepCount(r.getStepCount());
+                reportSummary.setRunningStepCount(r.getRunningStepCount());
+                reportSummary.setSuccessStepCount(r.getSuccessStepCount());
+                reportSummary.setFailureStepCount(r.getFailureStepCount());
+                setSlowestStep(reportSummary, slowestStepReports.get(r.getId()));
+                entityManager.persist(reportSummary);
+            }
+            rebuilt += taskReports.size();
+            after = taskReports.get(taskReports.size() - 1).getId();
+            entityManager.flush();
+            entityManager.clear();
+        } while (taskReports.size() == REBUILD_BATCH_SIZE);
+        log.info("Rebuilt " + rebuilt + " report summaries");
+        return rebuilt;
+    }
+
+    // Projection.
+
+    @EventListener
+    public void onTaskReportChanged(TaskReportChanged event) {
+        if (event.getType() == TaskReportChanged.Type.DELETED) {
+            reportSummaryRepo.findById(event.getTaskReportId()).ifPresent(reportSummaryRepo::delete);     // Unlike a bulk delete, also drops a managed copy.
+            return;
+        }
+        ReportSummary reportSummary;
+        if (event.getType() == TaskReportChanged.Type.CREATED) {
+            reportSummary = ReportSummary.builder()
+                    .taskReportId(event.getTaskReportId())
+                    .taskId(event.getTaskId())
+                    .taskTitle(event.getTaskTitle())
+                    .build();
+            entityManager.persist(reportSummary);       // persist, unlike save, does not look the assigned id up first.
+        } else {
+            reportSummary = findReportSummary(event.getTaskReportId());
+            if (reportSummary == null) {
+                return;
+            }
+        }
+        copyTaskReport(reportSummary, event.getStatus(), event.getStartDateTime(), event.getEndDateTime(),
+                event.getExecutionTimeSeconds(), event.getExecutionTimeMicros());
+        reportSummary.setStepCount(event.getStepAggregates().getStepCount());
+        reportSummary.setRunningStepCount(event.getStepAggregates().getRunningStepCount());
+        reportSummary.setSuccessStepCount(event.getStepAggregates().getSuccessStepCount());
+        reportSummary.setFailureStepCount(event.getStepAggregates().getFailureStepCount());
+    }
+
+    /**
+     * Moves the slowest StepReport on a step event. A StepReport without an execution time cannot become the slowest,
+     * so creating one does not even read the ReportSummary.
+     */
+    @EventListener
+    public void onReportEvent(ReportEvent event) {
+        StepReportView stepReport = event.getStepReport();
+        if (stepReport == null) {
+            return;     // Status changes reach the read model as TaskReportChanged.
+        }
+        Long executionTimeMicros = event.getType() == ReportEvent.Type.STEP_DELETED ? null : executionTimeMicrosOf(stepReport);
+        if (executionTimeMicros == null && event.getType() == ReportEvent.Type.STEP_CREATED) {
+            return;
+        }
+        ReportSummary reportSummary = findReportSummary(event.getTaskReportId());
+        if (reportSummary == null) {
+            return;
+        }
+        boolean slowest = stepReport.getId().equals(reportSummary.getSlowestStepReportId());
+        Long slowestMicros = reportSummary.getSlowestStepExecutionTimeMicros();
+        if (executionTimeMicros != null && (slowestMicros == null || executionTimeMicros > slowestMicros
+                || (executionTimeMicros.equals(slowestMicros) && (slowest || stepReport.getId() < reportSummary.getSlowestStepReportId())))) {
+            reportSummary.setSlowestStepReportId(stepReport.getId());
+            reportSummary.setSlowestStepName(stepReport.getStepName());
+            reportSummary.setSlowestStepExecutionTimeMicros(executionTimeMicros);
+        } else if (slowest) {
+            setSlowestStep(reportSummary, slowestStepReports(List.of(event.getTaskReportId())).get(event.getTaskReportId()));
+        }
+    }
+
+    // Projection support methods.
+
+    private ReportSummary findReportSummary(Long taskReportId) {
+        Optional<ReportSummary> reportSummary = reportSummaryRepo.findById(taskReportId);
+        if (reportSummary.isEmpty()) {
+            log.warn("No ReportSummary for TaskReport with id " + taskReportId + ", rebuild the read model to backfill it");
+            return null;
+        }
+        return reportSummary.get();
+    }
+
+    private static void copyTaskReport(ReportSummary reportSummary, Status status, LocalDateTime startDateTime,
+                                       LocalDateTime endDateTime, Long executionTimeSeconds, Long executionTimeMicros) {
+        reportSummary.setStatus(status);
+        reportSummary.setStartDateTime(startDateTime);
+        reportSummary.setEndDateTime(endDateTime);
+        reportSummary.setExecutionTimeSeconds(executionTimeSeconds);
+        reportSummary.setExecutionTimeMicros(executionTimeMicros);
+    }
+
+    private static void setSlowestStep(ReportSummary reportSummary, TaskStepExecutionReport stepReport) {
+        reportSummary.setSlowestStepReportId(stepReport == null ? null : stepReport.getId());
+        reportSummary.setSlowestStepName(stepReport == null ? null : stepReport.getStepName());
+        reportSummary.setSlowestStepExecutionTimeMicros(stepReport == null ? null : stepReport.preciseExecutionTimeMicros());
+    }
+
+    /**
+     * The slowest StepReport of each of the given TaskReports that has one with an execution time.
+     */
+    private Map<Long, TaskStepExecutionReport> slowestStepReports(List<Long> taskReportIds) {
+        Map<Long, TaskStepExecutionReport> slowestStepReports = new HashMap<>();
+        for (TaskStepExecutionReport t : taskStepExecutionReportRepo.findSlowestStepReports(taskReportIds)) {
+            slowestStepReports.putIfAbsent(t.getTaskExecutionId().getId(), t);      // Ordered by id, so ties keep the lowest.
+        }
+        return slowestStepReports;
+    }
+
+    private static Long executionTimeMicrosOf(StepReportView stepReport) {
+        if (stepReport.getExecutionTimeMicros() != null) {
+            return stepReport.getExecutionTimeMicros();
+        }
+        return stepReport.getExecutionTimeSeconds() == null ? null : TimeUnit.SECONDS.toMicros(stepReport.getExecutionTimeSeconds());
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.LatencyWindow;
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.StepLatency;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.PackedHistogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-stepName HDR histograms of StepReport execution times in microseconds, so percentiles never need the StepReports themselves.
+ * Each LatencyWindow is a ring of histograms, one per bucket, that are merged when queried; a bucket is only allocated
+ * once something completes in it, and is packed, so it takes memory for the distinct latencies recorded in it rather
+ * than for the whole range. At most latency.max-step-names step names are tracked, in at most latency.max-memory of
+ * histograms; past that, the step name recorded longest ago is dropped.
+ * Completions are recorded once their write has committed and are rebuilt from the database on startup. A completion
+ * whose client endDateTime is after the server's time is bucketed at the server's time, so it cannot claim the slot of a
+ * bucket that has not started yet and make the completions that belong there look too old.
+ * Deleted StepReports stay in the sketches until their bucket ages out.
+ */
+@Slf4j
+@Component
+public class StepLatencySketches implements MeterBinder {
+
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.DAYS.toMicros(7);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    @Value("${latency.max-step-names:1000}")
+    private int maxStepNames = 1000;
+    @Value("${latency.max-memory:64MB}")
+    private DataSize maxMemory = DataSize.ofMegabytes(64);
+
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Recording is cheap next to the write that triggers it, so one lock guards the sketches and their footprint.
+    private final Map<String, StepSketch> sketches = new HashMap<>();
+    private long footprintBytes;
+    private long recordings;
+
+    /**
+     * Runs before the web server starts, so no live completion can be recorded twice.
+     */
+    @PostConstruct
+    public void rebuild() {
+        synchronized (this) {
+            sketches.clear();
+            footprintBytes = 0;
+        }
+        LocalDateTime since = LocalDateTime.now().minus(longestWindow());
+        long rebuilt = transactionTemplate.execute(status -> {
+            long rows = 0;
+            try (Stream<TaskStepExecutionReport> stepReports = taskStepExecutionReportRepo.streamCompletedSince(since)) {
+                Iterator<TaskStepExecutionReport> iterator = stepReports.iterator();
+                while (iterator.hasNext()) {
+                    TaskStepExecutionReport t = iterator.next();
+                    record(t.getStepName(), t.getEndDateTime(), t.preciseExecutionTimeMicros());
+                    entityManager.detach(t);
+                    rows++;
+                }
+            }
+            return rows;
+        });
+        log.info("Rebuilt step latency sketches from " + rebuilt + " completed StepReports");
+    }
+
+    /**
+     * Records a StepReport that was created as SUCCESS or updated into SUCCESS; an update of a StepReport that already
+     * was SUCCESS has been recorded before.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReportEvent(ReportEvent event) {
+        StepReportView stepReport = event.getStepReport();
+        if (stepReport == null || stepReport.getStatus() != Status.SUCCESS) {
+            return;
+        }
+        if (event.getType() == ReportEvent.Type.STEP_CREATED
+                || event.getType() == ReportEvent.Type.STEP_UPDATED && event.getPreviousStepStatus() != Status.SUCCESS) {
+            record(stepReport.getStepName(), stepReport.getEndDateTime(), stepReport.getExecutionTimeMicros());
+        }
+    }
+
+    /**
+     * Percentiles of every tracked step name, or of just stepName, over the window ending now.
+     */
+    public List<StepLatency> latencies(LatencyWindow window, Optional<String> stepName) {
+        return latencies(window, stepName, Instant.now());
+    }
+
+    List<StepLatency> latencies(LatencyWindow window, Optional<String> stepName, Instant now) {
+        Collection<String> stepNames;
+        synchronized (this) {
+            stepNames = stepName.<Collection<String>>map(List::of).orElseGet(() -> new TreeSet<>(sketches.keySet()));
+        }
+        List<StepLatency> latencies = new ArrayList<>();
+        for (String name : stepNames) {
+            Histogram merged;
+            synchronized (this) {       // One step name at a time, so a query over all of them does not hold up recording.
+                StepSketch sketch = sketches.get(name);
+                merged = sketch == null ? null : sketch.merge(window, now);
+            }
+            if (merged != null && merged.getTotalCount() > 0) {
+                latencies.add(StepLatency.builder()
+                        .stepName(name)
+                        .window(window)
+                        .count(merged.getTotalCount())
+                        .p50Micros(merged.getValueAtPercentile(50))
+                        .p95Micros(merged.getValueAtPercentile(95))
+                        .p99Micros(merged.getValueAtPercentile(99))
+                        .maxMicros(merged.getMaxValue())
+                        .build());
+            }
+        }
+        return latencies;
+    }
+
+    void record(String stepName, LocalDateTime endDateTime, Long executionTimeMicros) {
+        record(stepName, endDateTime, executionTimeMicros, MonotonicClock.INSTANCE.instant());
+    }
+
+    synchronized void record(String stepName, LocalDateTime endDateTime, Long executionTimeMicros, Instant now) {
+        if (stepName == null || endDateTime == null || executionTimeMicros == null) {
+            return;
+        }
+        StepSketch sketch = sketches.get(stepName);
+        if (sketch == null) {
+            if (sketches.size() >= maxStepNames) {
+                log.warn("Not tracking the latency of step " + stepName + ", already tracking " + maxStepNames + " step names");
+                return;
+            }
+            sketch = new StepSketch();
+            sketches.put(stepName, sketch);
+        }
+        long micros = Math.max(0, Math.min(executionTimeMicros, HIGHEST_TRACKABLE_MICROS));
+        Instant completedAt = endDateTime.atZone(ZoneId.systemDefault()).toInstant();
+        if (completedAt.isAfter(now)) {
+            completedAt = now;
+        }
+        footprintBytes += sketch.record(completedAt, micros, ++recordings);
+        while (footprintBytes > maxMemory.toBytes() && sketches.size() > 1) {
+            evictLeastRecentlyRecorded(stepName);
+        }
+    }
+
+    /**
+     * Estimated bytes held by the histograms of every tracked step name.
+     */
+    synchronized long footprintBytes() {
+        return footprintBytes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("latency.sketches.footprint", this, StepLatencySketches::footprintBytes)
+                .description("Estimated memory held by the step latency histograms")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drops the sketch of the step name whose latest completion was recorded longest ago, never that of keep.
+     */
+    private void evictLeastRecentlyRecorded(String keep) {
+        String oldest = null;
+        for (Map.Entry<String, StepSketch> entry : sketches.entrySet()) {
+            if (!entry.getKey().equals(keep) && (oldest == null || entry.getValue().lastRecording < sketches.get(oldest).lastRecording)) {
+                oldest = entry.getKey();
+            }
+        }
+        footprintBytes -= sketches.remove(oldest).footprintBytes;
+        log.warn("Stopped tracking the latency of step " + oldest + ", the step latency sketches reached " + maxMemory);
+    }
+
+    private static Duration longestWindow() {
+        return Arrays.stream(LatencyWindow.values())
+                .map(window -> window.getBucketWidth().multipliedBy(window.getBucketCount()))
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+    }
+
+    /**
+     * The rings of one step name, with the memory they hold. Histograms are not thread-safe, so every access holds the
+     * lock of the enclosing StepLatencySketches.
+     */
+    private static final class StepSketch {
+
+        private final Map<LatencyWindow, Ring> rings = new EnumMap<>(LatencyWindow.class);
+        private long footprintBytes;
+        private long lastRecording;
+
+        private StepSketch() {
+            for (LatencyWindow window : LatencyWindow.values()) {
+                rings.put(window, new Ring(window));
+            }
+        }
+
+        /**
+         * @return the bytes the rings grew by
+         */
+        private long record(Instant completedAt, long micros, long recording) {
+            long growth = 0;
+            for (Ring ring : rings.values()) {
+                growth += ring.record(completedAt, micros);
+            }
+            footprintBytes += growth;
+            lastRecording = recording;
+            return growth;
+        }
+
+        private Histogram merge(LatencyWindow window, Instant now) {
+            return rings.get(window).merge(now);
+        }
+    }
+
+    /**
+     * Fixed ring of bucketCount histograms; the slot of a bucket is reused once the bucket has left the window.
+     */
+    private static final class Ring {
+
+        private final long bucketMillis;
+        private final PackedHistogram[] histograms;
+        private final long[] buckets;
+
+        private Ring(LatencyWindow window) {
+            bucketMillis = window.getBucketWidth().toMillis();
+            histograms = new PackedHistogram[window.getBucketCount()];
+            buckets = new long[window.getBucketCount()];
+        }
+
+        /**
+         * @return the bytes the histogram of the slot grew by
+         */
+        private long record(Instant completedAt, long micros) {
+            long bucket = completedAt.toEpochMilli() / bucketMillis;
+            int slot = (int) Math.floorMod(bucket, (long) histograms.length);
+            long footprintBytes = 0;
+            if (histograms[slot] == null) {
+                histograms[slot] = new PackedHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            } else if (buckets[slot] > bucket) {
+                return 0;       // Older than whatever the slot holds, so already outside the window.
+            } else {
+                footprintBytes = histograms[slot].getEstimatedFootprintInBytes();
+                if (buckets[slot] < bucket) {
+                    histograms[slot].reset();
+                }
+            }
+            buckets[slot] = bucket;
+            histograms[slot].recordValue(micros);
+            return histograms[slot].getEstimatedFootprintInBytes() - footprintBytes;
+        }
+
+        private Histogram merge(Instant now) {
+            long current = now.toEpochMilli() / bucketMillis;
+            Histogram merged = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            for (int slot = 0; slot < histograms.length; slot++) {
+                if (histograms[slot] != null && buckets[slot] > current - histograms.length && buckets[slot] <= current) {
+                    merged.add(histograms[slot]);
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.QueuedStepReportWrite;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for StepReport creates and updates, used when ingestion.write-behind.enabled is set.
+ * Requests are validated and given their id in the servlet thread, then queued; a single writer thread drains the queue
+ * in batches grouped by TaskReport, so each TaskReport is loaded and saved once per batch. If the writes of a TaskReport
+ * fail together they are retried one per transaction, so only the failing write is lost; lost writes are counted by
+ * ingestion.write-behind.dropped.
+ * A full queue blocks the caller for up to offer-timeout and then refuses the write. On shutdown the queue is drained
+ * after the web server has stopped taking requests.
+ */
+@Slf4j
+@Component
+public class StepReportWriteBehind implements SmartLifecycle, MeterBinder {
+
+    @Value("${ingestion.write-behind.enabled:false}")
+    private boolean enabled;
+    @Value("${ingestion.write-behind.capacity:10000}")
+    private int capacity;
+    @Value("${ingestion.write-behind.batch-size:500}")
+    private int batchSize;
+    @Value("${ingestion.write-behind.offer-timeout:1s}")
+    private Duration offerTimeout;
+
+    @Autowired      // Resolved on first use, as the service depends on this queue; a class-typed @Lazy proxy breaks under Spring AOT.
+    private ObjectFactory<TaskStepExecutionReportServiceImpl> taskStepExecutionReportServiceImpl;
+
+    private BlockingQueue<QueuedStepReportWrite> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the write, waiting up to offer-timeout for room.
+     *
+     * @return false if the queue stayed full or is shutting down, in which case nothing was queued
+     */
+    public boolean offer(QueuedStepReportWrite write) throws InterruptedException {
+        return running && queue.offer(write, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public int size() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Accepted writes that failed on their own and were lost.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::drain, "step-report-writer");
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        while (!queue.isEmpty()) {      // Writes queued by callers that passed the running check just before shutdown.
+            writeBatch(takeBatch(batchSize));
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server (and its graceful shutdown), so no request can queue a write once draining has started.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("ingestion.write.behind.queue.size", this, StepReportWriteBehind::size)
+                .description("StepReport writes accepted but not yet applied")
+                .register(meterRegistry);
+        FunctionCounter.builder("ingestion.write-behind.dropped", this, StepReportWriteBehind::dropped)
+                .description("StepReport writes accepted but lost because applying them failed")
+                .register(meterRegistry);
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedStepReportWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<QueuedStepReportWrite> batch = new ArrayList<>(List.of(first));
+                    queue.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<QueuedStepReportWrite> takeBatch(int maxSize) {
+        List<QueuedStepReportWrite> batch = new ArrayList<>();
+        queue.drainTo(batch, maxSize);
+        return batch;
+    }
+
+    /**
+     * Applies a batch one TaskReport at a time, in arrival order within each TaskReport.
+     * If the writes of a TaskReport fail together, each is retried in its own transaction, so a single bad write
+     * neither holds up the other TaskReports nor takes the other writes of its TaskReport down with it.
+     */
+    private void writeBatch(List<QueuedStepReportWrite> batch) {
+        Map<Long, List<QueuedStepReportWrite>> byTaskReport = new LinkedHashMap<>();
+        for (QueuedStepReportWrite write : batch) {
+            byTaskReport.computeIfAbsent(write.getTaskReportId(), id -> new ArrayList<>()).add(write);
+        }
+        byTaskReport.forEach((taskReportId, writes) -> {
+            if (writes.size() > 1) {
+                try {
+                    taskStepExecutionReportServiceImpl.getObject().writeQueuedStepReports(taskReportId, writes);
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Retrying " + writes.size() + " queued StepReport writes for TaskReport with id " + taskReportId
+                            + " one at a time", e);
+                }
+            }
+            writes.forEach(write -> writeAlone(taskReportId, write));
+        });
+    }
+
+    private void writeAlone(Long taskReportId, QueuedStepReportWrite write) {
+        try {
+            taskStepExecutionReportServiceImpl.getObject().writeQueuedStepReports(taskReportId, List.of(write));
+        } catch (RuntimeException e) {
+            dropped.incrementAndGet();
+            log.error("Dropped a queued StepReport write for TaskReport with id " + taskReportId
+                    + " and StepReport with id " + write.getStepReport().getId(), e);
+        }
+    }
+}
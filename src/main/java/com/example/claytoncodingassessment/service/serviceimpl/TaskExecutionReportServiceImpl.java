@@ -1,25 +1,37 @@
 package com.example.claytoncodingassessment.service.serviceimpl;
 
+import com.example.claytoncodingassessment.config.CacheConfig;
+import com.example.claytoncodingassessment.config.MetricsConfig;
+import com.example.claytoncodingassessment.model.AggregateConsistencyReport;
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.ServiceResult;
 import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.StepAggregates;
+import com.example.claytoncodingassessment.model.TaskReportChanged;
 import com.example.claytoncodingassessment.model.entities.Task;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
 import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
 import com.example.claytoncodingassessment.service.TaskExecutionReportService;
 import com.example.claytoncodingassessment.service.TaskService;
-import com.example.claytoncodingassessment.service.exceptions.AlreadySuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class TaskExecutionReportServiceImpl implements TaskExecutionReportService {
 
     @Autowired
@@ -27,122 +39,293 @@ public class TaskExecutionReportServiceImpl implements TaskExecutionReportServic
 
     @Autowired
     private TaskService taskService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Lazy
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;     // Proxied self, so internal lookups go through the cache.
 
     @Override
-    public TaskExecutionReport createTaskExecutionReport(Long taskId, TaskExecutionReport taskExecutionReport) throws NoSuchTaskException, AlreadySuchTaskException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed", new Throwable());
-        } else if (taskService.findTaskById(taskId).get().getTaskExecutionReport() != null) {
-            throw new AlreadySuchTaskException("A TaskReport for task with id " + taskId + " already exists.", new Throwable());
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASKS, key = "#taskId")
+    public ServiceResult<TaskExecutionReport> createTaskExecutionReport(Long taskId, TaskExecutionReport taskExecutionReport) {
+        Optional<Task> task = taskService.findTaskById(taskId);
+        if (task.isEmpty()) {
+            return ServiceResult.notFound("Non-existent taskId passed");
+        } else if (task.get().getTaskExecutionReport() != null) {
+            return ServiceResult.conflict("A TaskReport for task with id " + taskId + " already exists.");
         } else {
-            taskExecutionReport.setTaskId(taskService.findTaskById(taskId).isPresent() ? taskService.findTaskById(taskId).get() : null);   // Setting the foreign key.
-            taskExecutionReport.setStartDateTime(LocalDateTime.now());
-            return taskExecutionReportRepo.save(taskExecutionReport);
+            taskExecutionReport.setTaskId(task.get());   // Setting the foreign key.
+            taskExecutionReport.setStartDateTime(LocalDateTime.now(MonotonicClock.INSTANCE));
+            resetAggregates(taskExecutionReport);
+            TaskExecutionReport createdTaskReport = taskExecutionReportRepo.save(taskExecutionReport);
+            publish(TaskReportChanged.Type.CREATED, createdTaskReport, task.get());
+            return ServiceResult.created(createdTaskReport);
         }
     }
 
     @Override
-    public List<TaskExecutionReport> getAllTaskExecutionReports() {
-        return new ArrayList<>(taskExecutionReportRepo.findAll());
+    public ServiceResult<TaskExecutionReport> getTaskExecutionReport(Long taskId, Long taskReportId) {
+        Optional<TaskExecutionReport> taskReport = taskExecutionReportService.findTaskReportById(taskReportId);
+        if (taskReport.isPresent() && Objects.equals(taskReport.get().getTaskId().getId(), taskId)) {
+            return ServiceResult.ok(taskReport.get());
+        }
+        return notFound(taskId);
     }
 
     @Override
-    public TaskExecutionReport getTaskExecutionReport(Long taskId, Long taskReportId) throws NoSuchTaskException, NoSuchTaskReportException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed.", new Throwable());
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    public ServiceResult<TaskExecutionReport> updateTaskExecutionReport(Long taskId, Long taskReportId, TaskExecutionReport taskExecutionReport) {
+        return resolveTaskReportForUpdate(taskId, taskReportId).map(taskReport -> {
+            taskReport.setErrorMessage(taskExecutionReport.getErrorMessage());
+            return taskExecutionReportRepo.save(taskReport);
+        });
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.TASKS, key = "#taskId"),
+            @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    })
+    public ServiceResult<TaskExecutionReport> deleteTaskExecutionReport(Long taskId, Long taskReportId) {
+        return resolveTaskReportForUpdate(taskId, taskReportId).map(taskReport -> {
+            taskExecutionReportRepo.delete(taskReport);
+            publish(TaskReportChanged.Type.DELETED, taskReport, null);
+            eventPublisher.publishEvent(ReportEvent.ofTaskReportDelete(taskReportId));
+            return taskReport;
+        });
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId", condition = "#repair")
+    public ServiceResult<AggregateConsistencyReport> checkAggregateConsistency(Long taskReportId, boolean repair) {
+        Optional<TaskExecutionReport> taskReport = repair
+                ? taskExecutionReportRepo.findForUpdateById(taskReportId)
+                : taskExecutionReportRepo.findById(taskReportId);
+        if (taskReport.isEmpty()) {
+            return ServiceResult.notFound("Non-existent taskReportId passed.");
         }
-        Task task = taskService.findTaskById(taskId).get();
-        if (!Objects.equals(task.getTaskExecutionReport().getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id " + taskId, new Throwable());
+        TaskExecutionReport taskExecutionReport = taskReport.get();
+        StepAggregates stored = aggregatesOf(taskExecutionReport);
+        TaskExecutionReport recomputedReport = TaskExecutionReport.builder().build();
+        for (TaskStepExecutionReport t : taskExecutionReport.getTaskStepExecutionReports()) {
+            addToAggregates(recomputedReport, t, 1);
         }
-        return taskExecutionReportRepo.findById(taskReportId).get();
+        StepAggregates recomputed = aggregatesOf(recomputedReport);
+        boolean consistent = stored.equals(recomputed);
+        if (!consistent) {
+            log.warn("Step aggregates of TaskReport with id " + taskReportId + " are out of date: stored " + stored + ", recomputed " + recomputed);
+            if (repair) {
+                updateAttributes(taskExecutionReport);
+            }
+        }
+        return ServiceResult.ok(AggregateConsistencyReport.builder()
+                .taskReportId(taskReportId)
+                .consistent(consistent)
+                .repaired(!consistent && repair)
+                .stored(stored)
+                .recomputed(recomputed)
+                .build());
     }
 
-    @Override
-    public TaskExecutionReport updateTaskExecutionReport(Long taskId, Long taskReportId, TaskExecutionReport taskExecutionReport) throws NoSuchTaskException, NoSuchTaskReportException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed.", new Throwable());
+    // CRUD Support methods.
+
+    /**
+     * Returns the TaskReport with taskReportId if it belongs to the Task with taskId, using a single query.
+     * Only a miss pays for the extra lookup that tells a missing Task apart from a foreign TaskReport.
+     */
+    public ServiceResult<TaskExecutionReport> resolveTaskReport(Long taskId, Long taskReportId) {
+        Optional<TaskExecutionReport> taskReport = taskExecutionReportRepo.findOwnedTaskReport(taskId, taskReportId);
+        if (taskReport.isPresent()) {
+            return ServiceResult.ok(taskReport.get());
         }
-        Task task = taskService.findTaskById(taskId).get();
-        if (!Objects.equals(task.getTaskExecutionReport().getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id " + taskId, new Throwable());
+        return notFound(taskId);
+    }
+
+    /**
+     * As resolveTaskReport, but locks the TaskReport row until the transaction ends. Every write path takes this lock
+     * before it reads any StepReport of the TaskReport, so the read-modify-write of the step aggregates cannot lose a
+     * concurrent update.
+     */
+    public ServiceResult<TaskExecutionReport> resolveTaskReportForUpdate(Long taskId, Long taskReportId) {
+        Optional<TaskExecutionReport> taskReport = taskExecutionReportRepo.findOwnedTaskReportForUpdate(taskId, taskReportId);
+        if (taskReport.isPresent()) {
+            return ServiceResult.ok(taskReport.get());
         }
-        TaskExecutionReport taskReport = task.getTaskExecutionReport();
-        taskReport.setErrorMessage(taskExecutionReport.getErrorMessage());
-        return taskExecutionReportRepo.save(taskReport);
+        return notFound(taskId);
     }
 
-    @Override
-    public void deleteTaskExecutionReport(Long taskId, Long taskReportId) throws NoSuchTaskException, NoSuchTaskReportException {
+    /**
+     * Works out which link of the taskId -> taskReportId chain is broken once the TaskReport lookup has missed.
+     */
+    private <T> ServiceResult<T> notFound(Long taskId) {
         if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed.", new Throwable());
-        }
-        Task task = taskService.findTaskById(taskId).get();
-        if (!Objects.equals(task.getTaskExecutionReport().getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id " + taskId, new Throwable());
+            return ServiceResult.notFound("Non-existent taskId passed.");
         }
-        taskExecutionReportRepo.deleteById(taskReportId);
+        return ServiceResult.notFound("Non-existent taskReportId passed for Task with id " + taskId);
     }
 
-    // CRUD Support methods.
+    /**
+     * Rebuilds the step aggregates from the full StepReport collection and derives status and time from them.
+     */
     public void updateAttributes(TaskExecutionReport taskExecutionReport) {
+        resetAggregates(taskExecutionReport);
+        for (TaskStepExecutionReport t : taskExecutionReport.getTaskStepExecutionReports()) {
+            addToAggregates(taskExecutionReport, t, 1);
+        }
+        deriveAttributes(taskExecutionReport);
+    }
+
+    /**
+     * Applies a single StepReport mutation to the aggregates in constant time.
+     * A create passes only addedStep, a delete only removedStep, an update passes both the previous and new state.
+     * Only taking away the latest step end time without a later one in its place costs a query, to find the next latest.
+     */
+    public void applyStepDelta(TaskExecutionReport taskExecutionReport, TaskStepExecutionReport removedStep, TaskStepExecutionReport addedStep) {
+        boolean latestEndRemoved = removedStep != null && removedStep.getEndDateTime() != null
+                && removedStep.getEndDateTime().equals(taskExecutionReport.getLatestStepEndDateTime())
+                && (addedStep == null || addedStep.getEndDateTime() == null || addedStep.getEndDateTime().isBefore(removedStep.getEndDateTime()));
+        if (removedStep != null) {
+            addToAggregates(taskExecutionReport, removedStep, -1);
+        }
+        if (addedStep != null) {
+            addToAggregates(taskExecutionReport, addedStep, 1);
+        }
+        if (latestEndRemoved) {     // The query flushes the StepReport write first, so it sees the steps as they are now.
+            taskExecutionReport.setLatestStepEndDateTime(taskExecutionReportRepo.findLatestStepEndDateTime(taskExecutionReport.getId()));
+        }
+        deriveAttributes(taskExecutionReport);
+    }
+
+    /**
+     * Applies a batch of newly created StepReports to the aggregates, saving the TaskReport once.
+     */
+    public void applyStepDeltas(TaskExecutionReport taskExecutionReport, List<TaskStepExecutionReport> addedSteps) {
+        for (TaskStepExecutionReport t : addedSteps) {
+            addToAggregates(taskExecutionReport, t, 1);
+        }
+        deriveAttributes(taskExecutionReport);
+    }
+
+    private void deriveAttributes(TaskExecutionReport taskExecutionReport) {
+        Status previousStatus = taskExecutionReport.getStatus();
         taskExecutionReport.setStatus(updateStatus(taskExecutionReport));
         updateTime(taskExecutionReport);
         taskExecutionReportRepo.save(taskExecutionReport);
+        publish(TaskReportChanged.Type.UPDATED, taskExecutionReport, null);
+        if (previousStatus != taskExecutionReport.getStatus()) {
+            eventPublisher.publishEvent(ReportEvent.ofStatus(taskExecutionReport.getId(), taskExecutionReport.getStatus()));
+        }
+    }
+
+    /**
+     * Announces a TaskReport change to the read model; task is only needed, and only passed, on CREATED.
+     */
+    private void publish(TaskReportChanged.Type type, TaskExecutionReport taskExecutionReport, Task task) {
+        eventPublisher.publishEvent(TaskReportChanged.builder()
+                .type(type)
+                .taskReportId(taskExecutionReport.getId())
+                .taskId(task == null ? null : task.getId())
+                .taskTitle(task == null ? null : task.getTitle())
+                .status(taskExecutionReport.getStatus())
+                .startDateTime(taskExecutionReport.getStartDateTime())
+                .endDateTime(taskExecutionReport.getEndDateTime())
+                .executionTimeSeconds(taskExecutionReport.getExecutionTimeSeconds())
+                .executionTimeMicros(taskExecutionReport.getExecutionTimeMicros())
+                .stepAggregates(aggregatesOf(taskExecutionReport))
+                .build());
     }
 
     private Status updateStatus(TaskExecutionReport taskExecutionReport) {
-        List<TaskStepExecutionReport> listOfSteps = new ArrayList<>(taskExecutionReport.getTaskStepExecutionReports());
-        if (listOfSteps.isEmpty()) {
+        if (taskExecutionReport.getStepCount() == 0) {
             return null;
         }
-        for (TaskStepExecutionReport s : listOfSteps) {
-            if (s.getStatus() == Status.FAILURE) {
-                return Status.FAILURE;
-            }
+        if (taskExecutionReport.getFailureStepCount() > 0) {
+            return Status.FAILURE;
         }
-        for (TaskStepExecutionReport s : listOfSteps) {
-            if (s.getStatus() == Status.RUNNING) {
-                return Status.RUNNING;
-            }
+        if (taskExecutionReport.getRunningStepCount() > 0) {
+            return Status.RUNNING;
         }
         return Status.SUCCESS;
     }
 
+    /**
+     * A SUCCESS TaskReport ends when its last StepReport ended, as stamped on the StepReports (client end times included).
+     */
     private void updateTime(TaskExecutionReport taskExecutionReport) {
-        Long exeTime = 0L;
-        List<TaskStepExecutionReport> listOfSteps = new ArrayList<>(taskExecutionReport.getTaskStepExecutionReports());
         if (taskExecutionReport.getStatus() == Status.SUCCESS) {
-            taskExecutionReport.setEndDateTime(LocalDateTime.now());
-            for (TaskStepExecutionReport t : listOfSteps) {
-                exeTime += t.getExecutionTimeSeconds();
-            }
-            taskExecutionReport.setExecutionTimeSeconds(exeTime);
+            taskExecutionReport.setEndDateTime(taskExecutionReport.getLatestStepEndDateTime());
+            taskExecutionReport.setExecutionTimeMicros(taskExecutionReport.getStepExecutionTimeMicros());
+            taskExecutionReport.setExecutionTimeSeconds(TimeUnit.MICROSECONDS.toSeconds(taskExecutionReport.getStepExecutionTimeMicros()));
         } else {
+            taskExecutionReport.setEndDateTime(null);
             taskExecutionReport.setExecutionTimeSeconds(null);
+            taskExecutionReport.setExecutionTimeMicros(null);
         }
     }
 
-    @Override
-    public List<TaskExecutionReport> getAllTaskExecutionReportsByStatus(Status status) {
-        return taskExecutionReportRepo.findAll()
-                .stream()
-                .filter(t -> t.getStatus() == status)
-                .collect(Collectors.toList());
+    private void addToAggregates(TaskExecutionReport taskExecutionReport, TaskStepExecutionReport step, int sign) {
+        taskExecutionReport.setStepCount(taskExecutionReport.getStepCount() + sign);
+        if (step.getStatus() == Status.RUNNING) {
+            taskExecutionReport.setRunningStepCount(taskExecutionReport.getRunningStepCount() + sign);
+        } else if (step.getStatus() == Status.SUCCESS) {
+            taskExecutionReport.setSuccessStepCount(taskExecutionReport.getSuccessStepCount() + sign);
+        } else if (step.getStatus() == Status.FAILURE) {
+            taskExecutionReport.setFailureStepCount(taskExecutionReport.getFailureStepCount() + sign);
+        }
+        if (step.getExecutionTimeSeconds() != null) {
+            taskExecutionReport.setStepExecutionTimeSeconds(taskExecutionReport.getStepExecutionTimeSeconds() + sign * step.getExecutionTimeSeconds());
+        }
+        if (step.preciseExecutionTimeMicros() != null) {
+            taskExecutionReport.setStepExecutionTimeMicros(taskExecutionReport.getStepExecutionTimeMicros() + sign * step.preciseExecutionTimeMicros());
+        }
+        if (sign > 0 && step.getEndDateTime() != null && (taskExecutionReport.getLatestStepEndDateTime() == null
+                || step.getEndDateTime().isAfter(taskExecutionReport.getLatestStepEndDateTime()))) {
+            taskExecutionReport.setLatestStepEndDateTime(step.getEndDateTime());
+        }
+    }
+
+    private void resetAggregates(TaskExecutionReport taskExecutionReport) {
+        taskExecutionReport.setStepCount(0);
+        taskExecutionReport.setRunningStepCount(0);
+        taskExecutionReport.setSuccessStepCount(0);
+        taskExecutionReport.setFailureStepCount(0);
+        taskExecutionReport.setStepExecutionTimeSeconds(0);
+        taskExecutionReport.setStepExecutionTimeMicros(0);
+        taskExecutionReport.setLatestStepEndDateTime(null);
+    }
+
+    private StepAggregates aggregatesOf(TaskExecutionReport taskExecutionReport) {
+        return StepAggregates.builder()
+                .stepCount(taskExecutionReport.getStepCount())
+                .runningStepCount(taskExecutionReport.getRunningStepCount())
+                .successStepCount(taskExecutionReport.getSuccessStepCount())
+                .failureStepCount(taskExecutionReport.getFailureStepCount())
+                .stepExecutionTimeSeconds(taskExecutionReport.getStepExecutionTimeSeconds())
+                .stepExecutionTimeMicros(taskExecutionReport.getStepExecutionTimeMicros())
+                .latestStepEndDateTime(taskExecutionReport.getLatestStepEndDateTime())
+                .build();
     }
 
     @Override
-    public List<TaskExecutionReport> getAllTaskExecutionReportsOrderedByExeTime() {
-        return taskExecutionReportRepo.findAll()
-                .stream()
-                .filter(t -> t.getExecutionTimeSeconds() != null)
-                .sorted(Comparator.comparing(TaskExecutionReport::getExecutionTimeSeconds))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<TaskExecutionReport> getTaskExecutionReports(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TaskExecutionReport> taskReports = new HashMap<>();
+        taskExecutionReportRepo.fetchTaskStepExecutionReports(ids).forEach(t -> taskReports.put(t.getId(), t));
+        return ids.stream().map(taskReports::get).filter(Objects::nonNull).toList();
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.TASK_REPORTS, unless = "#result == null")     // A miss is not cached, so it cannot hide a TaskReport created later.
     public Optional<TaskExecutionReport> findTaskReportById(Long id) {
-        return taskExecutionReportRepo.findById(id);
+        return taskExecutionReportRepo.findWithTaskStepExecutionReportsById(id);     // Steps are loaded up front so the cached copy can be served detached.
     }
 }
 
@@ -1,31 +1,58 @@
 package com.example.claytoncodingassessment.service.serviceimpl;
 
+import com.example.claytoncodingassessment.config.CacheConfig;
+import com.example.claytoncodingassessment.config.MetricsConfig;
+import com.example.claytoncodingassessment.model.CursorPage;
 import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
 import com.example.claytoncodingassessment.repository.TaskRepo;
 import com.example.claytoncodingassessment.service.TaskService;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class TaskServiceImpl implements TaskService {
 
     @Autowired
     private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.TASKS, key = "#result.id")     // Drops a cached miss for the new id.
     public Task createTask(Task task) {
         return taskRepo.save(task);
     }
 
     @Override
-    public List<Task> getAllTasks() {
-        return taskRepo.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<Task> getAllTasks(String after, int limit) throws InvalidCursorException {
+        Cursor cursor = Cursor.decode(after);
+        List<Task> tasks = taskRepo.findAllByIdGreaterThanOrderByIdAsc(cursor.getId(), Cursor.pageable(limit));
+        List<Long> taskReportIds = tasks.stream()
+                .map(Task::getTaskExecutionReport)
+                .filter(Objects::nonNull)
+                .map(TaskExecutionReport::getId)
+                .toList();
+        if (!taskReportIds.isEmpty()) {
+            taskExecutionReportRepo.fetchTaskStepExecutionReports(taskReportIds);      // Second phase, one query for the page.
+        }
+        return Cursor.page(tasks, limit, t -> Cursor.of(t.getId()));
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.TASKS)
     public Optional<Task> findTaskById(Long id) {
         return taskRepo.findById(id);
     }
@@ -1,25 +1,48 @@
 package com.example.claytoncodingassessment.service.serviceimpl;
 
+import com.example.claytoncodingassessment.config.CacheConfig;
+import com.example.claytoncodingassessment.config.MetricsConfig;
+import com.example.claytoncodingassessment.model.CursorPage;
+import com.example.claytoncodingassessment.model.QueuedStepReportWrite;
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.ServiceResult;
 import com.example.claytoncodingassessment.model.Status;
-import com.example.claytoncodingassessment.model.entities.Task;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
 import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
 import com.example.claytoncodingassessment.service.TaskExecutionReportService;
-import com.example.claytoncodingassessment.service.TaskService;
 import com.example.claytoncodingassessment.service.TaskStepExecutionReportService;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchStepReportException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class TaskStepExecutionReportServiceImpl implements TaskStepExecutionReportService {
 
     @Autowired
@@ -27,148 +50,358 @@ public class TaskStepExecutionReportServiceImpl implements TaskStepExecutionRepo
     @Autowired
     private TaskExecutionReportService taskExecutionReportService;
     @Autowired
-    private TaskService taskService;
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private StepReportWriteBehind stepReportWriteBehind;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     @Autowired
     private TaskExecutionReportServiceImpl taskExecutionReportServiceImpl;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${client-timestamps.max-skew:5s}")
+    private Duration maxClockSkew = Duration.ofSeconds(5);
+
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
 
     @Override
-    public TaskStepExecutionReport createTaskStepExecutionReport(Long taskId, Long taskReportId, TaskStepExecutionReport taskStepExecutionReport) throws NoSuchTaskException, NoSuchTaskReportException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed", new Throwable());
-        }
-        Task task = taskService.findTaskById(taskId).get();
-        if (!Objects.equals(task.getTaskExecutionReport().getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id " + taskId,  new Throwable());
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    public ServiceResult<TaskStepExecutionReport> createTaskStepExecutionReport(Long taskId, Long taskReportId, TaskStepExecutionReport taskStepExecutionReport) {
+        return resolveTaskReportForWrite(taskId, taskReportId).flatMap(taskReport -> {
+            taskStepExecutionReport.setId(null);      // The id generator keeps an id the entity carries, so one from the body would overwrite that StepReport.
+            taskStepExecutionReport.setTaskExecutionId(taskReport);   // Setting the foreign key
+            if (taskStepExecutionReport.getStartDateTime() == null) {
+                taskStepExecutionReport.setStartDateTime(LocalDateTime.now(MonotonicClock.INSTANCE));
+            }
+            String invalidTimestamps = checkClientTimestamps(taskStepExecutionReport);
+            if (invalidTimestamps != null) {
+                return ServiceResult.invalid(invalidTimestamps);
+            }
+            checkForSuccess(taskStepExecutionReport);
+            if (stepReportWriteBehind.isEnabled()) {
+                taskStepExecutionReport.setId(nextStepReportId(taskStepExecutionReport));
+                return enqueue(new QueuedStepReportWrite(taskReportId, taskStepExecutionReport, false));
+            }
+            TaskStepExecutionReport createdStepReport = taskStepExecutionReportRepo.save(taskStepExecutionReport);
+            publish(ReportEvent.Type.STEP_CREATED, taskReportId, createdStepReport);
+            taskExecutionReportServiceImpl.applyStepDelta(createdStepReport.getTaskExecutionId(), null, createdStepReport);
+            return ServiceResult.created(createdStepReport);
+        });
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    public ServiceResult<List<TaskStepExecutionReport>> createTaskStepExecutionReports(Long taskId, Long taskReportId, List<TaskStepExecutionReport> taskStepExecutionReports) {
+        return resolveTaskReportForWrite(taskId, taskReportId).flatMap(taskReport -> {
+            if (taskStepExecutionReports.isEmpty()) {
+                return ServiceResult.created(taskStepExecutionReports);
+            }
+            LocalDateTime startDateTime = LocalDateTime.now(MonotonicClock.INSTANCE);
+            for (int i = 0; i < taskStepExecutionReports.size(); i++) {
+                TaskStepExecutionReport t = taskStepExecutionReports.get(i);
+                t.setId(null);      // As for a single create, ids always come from the sequence.
+                t.setTaskExecutionId(taskReport);   // Setting the foreign key
+                if (t.getStartDateTime() == null) {
+                    t.setStartDateTime(startDateTime);
+                }
+                String invalidTimestamps = checkClientTimestamps(t);
+                if (invalidTimestamps != null) {
+                    return ServiceResult.invalid("StepReport " + i + " of the batch: " + invalidTimestamps);     // Nothing has been saved yet.
+                }
+                checkForSuccess(t);
+            }
+            List<TaskStepExecutionReport> createdStepReports = taskStepExecutionReportRepo.saveAll(taskStepExecutionReports);
+            createdStepReports.forEach(t -> publish(ReportEvent.Type.STEP_CREATED, taskReportId, t));
+            taskExecutionReportServiceImpl.applyStepDeltas(taskReport, createdStepReports);     // One recompute for the whole batch.
+            return ServiceResult.created(createdStepReports);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TaskStepExecutionReport> getAllTaskStepExecutionReports(String after, int limit) throws InvalidCursorException {
+        Cursor cursor = Cursor.decode(after);
+        return Cursor.page(taskStepExecutionReportRepo.findAllByIdGreaterThanOrderByIdAsc(cursor.getId(), Cursor.pageable(limit)),
+                limit, t -> Cursor.of(t.getId()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTaskStepExecutionReports(Status status, LocalDateTime from, LocalDateTime to, OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writer();
+        long rows = 0;
+        try (Stream<TaskStepExecutionReport> stepReports = taskStepExecutionReportRepo.streamAllForExport(status, from, to)) {
+            Iterator<TaskStepExecutionReport> iterator = stepReports.iterator();
+            while (iterator.hasNext()) {
+                TaskStepExecutionReport t = iterator.next();
+                outputStream.write(writer.writeValueAsBytes(t));
+                outputStream.write('\n');
+                entityManager.detach(t);        // Keeps the persistence context from growing with the export.
+                if (++rows % EXPORT_FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
         }
-        taskStepExecutionReport.setTaskExecutionId(taskExecutionReportService.findTaskReportById(taskReportId).get());   // Setting the foreign key
-        taskStepExecutionReport.setStartDateTime(LocalDateTime.now());
-        checkForSuccess(taskStepExecutionReport);
-        TaskStepExecutionReport createdStepReport = taskStepExecutionReportRepo.save(taskStepExecutionReport);
-        taskExecutionReportServiceImpl.updateAttributes(createdStepReport.getTaskExecutionId());
-        return createdStepReport;
+        outputStream.flush();
+    }
+
+    @Override
+    public ServiceResult<TaskStepExecutionReport> getTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId) {
+        return resolveStepReport(taskId, taskReportId, stepReportId);
     }
 
     @Override
-    public List<TaskStepExecutionReport> getAllTaskStepExecutionReports() {
-        return new ArrayList<>(taskStepExecutionReportRepo.findAll());
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    public ServiceResult<TaskStepExecutionReport> updateTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId,
+                                                                        TaskStepExecutionReport taskStepExecutionReport) {
+        return resolveStepReportForWrite(taskId, taskReportId, stepReportId).flatMap(t -> {
+            if (isOutOfOrder(t, taskStepExecutionReport)) {
+                return ServiceResult.ignored(t);
+            }
+            taskStepExecutionReport.setId(t.getId());
+            taskStepExecutionReport.setTaskExecutionId(t.getTaskExecutionId());
+            if (taskStepExecutionReport.getSequenceNumber() == null) {
+                taskStepExecutionReport.setSequenceNumber(t.getSequenceNumber());
+            }
+            if (taskStepExecutionReport.getStartDateTime() == null) {
+                taskStepExecutionReport.setStartDateTime(t.getStartDateTime());
+            }
+            String invalidTimestamps = checkClientTimestamps(taskStepExecutionReport);
+            if (invalidTimestamps != null) {
+                return ServiceResult.invalid(invalidTimestamps);
+            }
+            checkForSuccess(taskStepExecutionReport);
+            if (stepReportWriteBehind.isEnabled()) {
+                return enqueue(new QueuedStepReportWrite(taskReportId, taskStepExecutionReport, true));
+            }
+            replaceStepReport(t, taskStepExecutionReport);
+            return ServiceResult.ok(taskStepExecutionReport);
+        });
     }
 
     @Override
-    public TaskStepExecutionReport getTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId) throws NoSuchTaskException, NoSuchTaskReportException, NoSuchStepReportException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed", new Throwable());
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    public ServiceResult<TaskStepExecutionReport> deleteTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId) {
+        return resolveStepReportForWrite(taskId, taskReportId, stepReportId).map(t -> {
+            TaskExecutionReport taskReport = t.getTaskExecutionId();
+            taskStepExecutionReportRepo.delete(t);
+            publish(ReportEvent.Type.STEP_DELETED, taskReportId, t);
+            if (Hibernate.isInitialized(taskReport.getTaskStepExecutionReports())) {    // Only touch the collection if something already loaded it.
+                taskReport.getTaskStepExecutionReports().remove(t);
+            }
+            taskExecutionReportServiceImpl.applyStepDelta(taskReport, t, null);
+            return t;
+        });
+    }
+
+    // CRUD Support methods.
+
+    /**
+     * Applies the queued writes of one TaskReport in a single transaction, in the order they were accepted.
+     * Writes for a TaskReport or StepReport deleted in the meantime are dropped.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TASK_REPORTS, key = "#taskReportId")
+    public void writeQueuedStepReports(Long taskReportId, List<QueuedStepReportWrite> writes) {
+        Optional<TaskExecutionReport> taskReport = taskExecutionReportRepo.findForUpdateById(taskReportId);
+        if (taskReport.isEmpty()) {
+            log.warn("Dropped " + writes.size() + " queued StepReport writes for deleted TaskReport with id " + taskReportId);
+            return;
         }
-        Task task = taskService.findTaskById(taskId).get();
-        TaskExecutionReport taskReport = task.getTaskExecutionReport();
-        if (!Objects.equals(taskReport.getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id " + taskId, new Throwable());
+        for (QueuedStepReportWrite write : writes) {
+            TaskStepExecutionReport stepReport = write.getStepReport();
+            if (!write.isUpdate()) {
+                // persist takes an entity with an id for a detached one, so the id handed out when the write was accepted
+                // goes in as the reserved id instead. The copy leaves the StepReport the request answered with untouched.
+                TaskStepExecutionReport createdStepReport = stepReport.toBuilder()
+                        .id(null)
+                        .reservedId(stepReport.getId())
+                        .taskExecutionId(taskReport.get())
+                        .build();
+                entityManager.persist(createdStepReport);
+                publish(ReportEvent.Type.STEP_CREATED, taskReportId, createdStepReport);
+                taskExecutionReportServiceImpl.applyStepDelta(taskReport.get(), null, createdStepReport);
+                continue;
+            }
+            stepReport.setTaskExecutionId(taskReport.get());
+            Optional<TaskStepExecutionReport> current = taskStepExecutionReportRepo.findById(stepReport.getId());
+            if (current.isPresent() && current.get().getTaskExecutionId() == taskReport.get()) {
+                if (!isOutOfOrder(current.get(), stepReport)) {
+                    replaceStepReport(current.get(), stepReport);
+                }
+            } else {
+                log.warn("Dropped a queued update for deleted StepReport with id " + stepReport.getId());
+            }
         }
-        Set<TaskStepExecutionReport> stepReportSet = taskReport.getTaskStepExecutionReports();
-        for (TaskStepExecutionReport t : stepReportSet) {
-            if (Objects.equals(t.getId(), stepReportId)) {
-                return t;
+    }
+
+    /**
+     * Saves taskStepExecutionReport over the StepReport t it replaces and moves the TaskReport aggregates from the old state to the new one.
+     */
+    private void replaceStepReport(TaskStepExecutionReport t, TaskStepExecutionReport taskStepExecutionReport) {
+        TaskStepExecutionReport previousStepReport = TaskStepExecutionReport.builder()    // save() merges into t, so keep its old state.
+                .status(t.getStatus())
+                .endDateTime(t.getEndDateTime())
+                .executionTimeSeconds(t.getExecutionTimeSeconds())
+                .executionTimeMicros(t.getExecutionTimeMicros())
+                .build();
+        taskStepExecutionReportRepo.save(taskStepExecutionReport);
+        eventPublisher.publishEvent(ReportEvent.ofStepUpdate(t.getTaskExecutionId().getId(), previousStepReport.getStatus(),
+                StepReportView.of(taskStepExecutionReport)));
+        taskExecutionReportServiceImpl.applyStepDelta(t.getTaskExecutionId(), previousStepReport, taskStepExecutionReport);
+    }
+
+    /**
+     * True if update carries a sequenceNumber that is not after the one of the StepReport current, in which case a
+     * later update has already been applied and update is dropped. Updates without a sequenceNumber always apply.
+     */
+    private static boolean isOutOfOrder(TaskStepExecutionReport current, TaskStepExecutionReport update) {
+        return update.getSequenceNumber() != null && current.getSequenceNumber() != null
+                && update.getSequenceNumber() <= current.getSequenceNumber();
+    }
+
+    /**
+     * Announces a StepReport change; ReportEventBroadcaster delivers it once the transaction has committed.
+     */
+    private void publish(ReportEvent.Type type, Long taskReportId, TaskStepExecutionReport stepReport) {
+        eventPublisher.publishEvent(ReportEvent.ofStep(type, taskReportId, StepReportView.of(stepReport)));
+    }
+
+    private ServiceResult<TaskStepExecutionReport> enqueue(QueuedStepReportWrite write) {
+        try {
+            if (stepReportWriteBehind.offer(write)) {
+                return ServiceResult.accepted(write.getStepReport());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        throw new NoSuchStepReportException("Non-existent stepReportId passed for TaskReport with id " + taskReportId, new Throwable());
+        return ServiceResult.unavailable("Too many StepReport writes are queued, retry later.");
     }
 
-    @Override
-    public TaskStepExecutionReport updateTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId,
-                                                       TaskStepExecutionReport taskStepExecutionReport) throws NoSuchTaskException, NoSuchTaskReportException, NoSuchStepReportException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed", new Throwable());
+    /**
+     * Takes the next id from the StepReport sequence, through the same pooled optimizer as an insert would.
+     */
+    private Long nextStepReportId(TaskStepExecutionReport taskStepExecutionReport) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return (Long) session.getEntityPersister(null, taskStepExecutionReport).getIdentifierGenerator().generate(session, taskStepExecutionReport);
+    }
+
+    /**
+     * Returns the StepReport with its owning TaskReport if the whole taskId -> taskReportId -> stepReportId chain holds, using a single query.
+     * On a miss the TaskReport is resolved on its own to report which link of the chain is broken.
+     */
+    private ServiceResult<TaskStepExecutionReport> resolveStepReport(Long taskId, Long taskReportId, Long stepReportId) {
+        Optional<TaskStepExecutionReport> stepReport = taskStepExecutionReportRepo.findOwnedStepReport(taskId, taskReportId, stepReportId);
+        if (stepReport.isPresent()) {
+            return ServiceResult.ok(stepReport.get());
         }
-        Task task = taskService.findTaskById(taskId).get();
-        TaskExecutionReport taskReport = task.getTaskExecutionReport();
-        if (taskReport == null || !Objects.equals(taskReport.getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id " + taskId, new Throwable());
+        return taskExecutionReportServiceImpl.resolveTaskReport(taskId, taskReportId)
+                .flatMap(taskReport -> ServiceResult.notFound("Non-existent stepReportId passed for TaskReport with id " + taskReportId));
+    }
+
+    /**
+     * Resolves the TaskReport a StepReport write changes, locked when the write is applied in this transaction, so
+     * concurrent StepReport writes to one TaskReport apply their aggregate deltas one after the other.
+     * Queued writes take the lock when the writer applies them instead.
+     */
+    private ServiceResult<TaskExecutionReport> resolveTaskReportForWrite(Long taskId, Long taskReportId) {
+        if (stepReportWriteBehind.isEnabled()) {
+            return taskExecutionReportServiceImpl.resolveTaskReport(taskId, taskReportId);
         }
-        Set<TaskStepExecutionReport> stepReportSet = taskReport.getTaskStepExecutionReports();
-        for (TaskStepExecutionReport t : stepReportSet) {
-            if (Objects.equals(t.getId(), stepReportId)) {
-                taskStepExecutionReport.setId(t.getId());
-                taskStepExecutionReport.setTaskExecutionId(taskExecutionReportService.findTaskReportById(taskReportId).get());
-                taskStepExecutionReport.setStartDateTime(t.getStartDateTime());
-                checkForSuccess(taskStepExecutionReport);
-                taskStepExecutionReportRepo.save(taskStepExecutionReport);
-                taskExecutionReportServiceImpl.updateAttributes(taskStepExecutionReport.getTaskExecutionId());
-                return taskStepExecutionReport;
-            }
+        return taskExecutionReportServiceImpl.resolveTaskReportForUpdate(taskId, taskReportId);
+    }
+
+    /**
+     * Resolves a StepReport to update or delete. The TaskReport is locked before the StepReport is read, so the state
+     * the write starts from, and removes from the aggregates, is the one the previous write committed.
+     */
+    private ServiceResult<TaskStepExecutionReport> resolveStepReportForWrite(Long taskId, Long taskReportId, Long stepReportId) {
+        if (stepReportWriteBehind.isEnabled()) {
+            return resolveStepReport(taskId, taskReportId, stepReportId);
         }
-        throw new NoSuchStepReportException("Non-existent stepReportId passed for TaskReport with id " + taskReportId, new Throwable());
+        return taskExecutionReportServiceImpl.resolveTaskReportForUpdate(taskId, taskReportId).flatMap(taskReport -> taskStepExecutionReportRepo
+                .findOwnedStepReport(taskId, taskReportId, stepReportId)
+                .map(ServiceResult::ok)
+                .orElseGet(() -> ServiceResult.notFound("Non-existent stepReportId passed for TaskReport with id " + taskReportId)));
     }
 
-    @Override
-    public void deleteTaskStepExecutionReport(Long taskId, Long taskReportId, Long stepReportId) throws NoSuchTaskException, NoSuchTaskReportException, NoSuchStepReportException {
-        if (taskService.findTaskById(taskId).isEmpty()) {
-            throw new NoSuchTaskException("Non-existent taskId passed", new Throwable());
+    /**
+     * Why the start and end times of taskStepExecutionReport cannot be stored, or null if they can: an endDateTime
+     * before the startDateTime, or either one later than the server's now plus client-timestamps.max-skew.
+     * Such times would give a wrong duration, or a TaskReport end time in the future.
+     */
+    private String checkClientTimestamps(TaskStepExecutionReport taskStepExecutionReport) {
+        LocalDateTime startDateTime = taskStepExecutionReport.getStartDateTime();
+        LocalDateTime endDateTime = taskStepExecutionReport.getEndDateTime();
+        LocalDateTime latest = LocalDateTime.now(MonotonicClock.INSTANCE).plus(maxClockSkew);
+        if (startDateTime != null && startDateTime.isAfter(latest)) {
+            return "startDateTime " + startDateTime + " is in the future.";
         }
-        Task task = taskService.findTaskById(taskId).get();
-        TaskExecutionReport taskReport = task.getTaskExecutionReport();
-        if (taskReport == null || !Objects.equals(taskReport.getId(), taskReportId)) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed for Task with id" + taskId, new Throwable());
+        if (endDateTime != null && endDateTime.isAfter(latest)) {
+            return "endDateTime " + endDateTime + " is in the future.";
         }
-        Set<TaskStepExecutionReport> stepReportSet = taskReport.getTaskStepExecutionReports();
-        for (TaskStepExecutionReport t : stepReportSet) {
-            if (Objects.equals(t.getId(), stepReportId)) {
-                taskStepExecutionReportRepo.deleteById(stepReportId);
-                TaskExecutionReport taskReportToUpdate = taskExecutionReportService.findTaskReportById(taskReportId).get();
-                Set<TaskStepExecutionReport> steps = taskReportToUpdate.getTaskStepExecutionReports();
-                Iterator<TaskStepExecutionReport> iterator = steps.iterator();
-                while(iterator.hasNext()) {
-                    TaskStepExecutionReport tser = iterator.next();
-                    if (Objects.equals(tser.getId(), stepReportId)) {
-                        iterator.remove();
-                        break;
-                    }
-                }
-                taskExecutionReportServiceImpl.updateAttributes(taskReportToUpdate);
-            }
+        if (startDateTime != null && endDateTime != null && endDateTime.isBefore(startDateTime)) {
+            return "endDateTime " + endDateTime + " is before startDateTime " + startDateTime + ".";
         }
-        throw new NoSuchStepReportException("Non-existent stepReportId passed for TaskReport with id " + taskReportId, new Throwable());
+        return null;
     }
 
-    // CRUD Support method.
+    /**
+     * Stamps a SUCCESS StepReport with its end time and duration to the microsecond. The end time is the one the client
+     * passed, if any, otherwise the MonotonicClock's. A server end before a client start, which can only be up to the
+     * allowed clock skew, counts as a duration of 0. executionTimeSeconds is the same duration truncated to whole seconds.
+     */
     public void checkForSuccess(TaskStepExecutionReport taskStepExecutionReport) {
         if (taskStepExecutionReport.getStatus() == Status.SUCCESS) {
-            taskStepExecutionReport.setEndDateTime(LocalDateTime.now());
-            taskStepExecutionReport.setExecutionTimeSeconds(ChronoUnit.SECONDS.between(
+            if (taskStepExecutionReport.getEndDateTime() == null) {
+                taskStepExecutionReport.setEndDateTime(LocalDateTime.now(MonotonicClock.INSTANCE));
+            }
+            long executionTimeMicros = Math.max(0, ChronoUnit.MICROS.between(
                     taskStepExecutionReport.getStartDateTime(), taskStepExecutionReport.getEndDateTime()
             ));
+            taskStepExecutionReport.setExecutionTimeMicros(executionTimeMicros);
+            taskStepExecutionReport.setExecutionTimeSeconds(TimeUnit.MICROSECONDS.toSeconds(executionTimeMicros));
         } else {
             taskStepExecutionReport.setEndDateTime(null);
             taskStepExecutionReport.setExecutionTimeSeconds(null);
+            taskStepExecutionReport.setExecutionTimeMicros(null);
         }
     }
 
     @Override
-    public List<TaskStepExecutionReport> getAllTaskStepExecutionReportsSortedByStartDateTime(Long taskReportId) throws NoSuchTaskReportException {
-        if(taskExecutionReportService.findTaskReportById(taskReportId).isEmpty()) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed.", new Throwable());
-        }
-        return taskExecutionReportService.findTaskReportById(taskReportId).get().getTaskStepExecutionReports()
+    public ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportsSortedByStartDateTime(Long taskReportId) {
+        return stepReportsOf(taskReportId).map(stepReports -> stepReports
                 .stream()
                 .sorted(Comparator.comparing(TaskStepExecutionReport::getStartDateTime))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
-    public List<TaskStepExecutionReport> getAllTaskStepExecutionReportsSortedByExeTime(Long taskReportId) throws NoSuchTaskReportException {
-        if(taskExecutionReportService.findTaskReportById(taskReportId).isEmpty()) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed.", new Throwable());
-        }
-        return taskExecutionReportService.findTaskReportById(taskReportId).get().getTaskStepExecutionReports()
+    public ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportsSortedByExeTime(Long taskReportId) {
+        return stepReportsOf(taskReportId).map(stepReports -> stepReports
                 .stream()
-                .filter(t -> t.getExecutionTimeSeconds() != null)
-                .sorted(Comparator.comparing(TaskStepExecutionReport::getExecutionTimeSeconds))
-                .collect(Collectors.toList());
+                .filter(t -> t.preciseExecutionTimeMicros() != null)
+                .sorted(Comparator.comparing(TaskStepExecutionReport::preciseExecutionTimeMicros))
+                .collect(Collectors.toList()));
     }
-    
+
     @Override
-    public List<TaskStepExecutionReport> getAllTaskStepExecutionReportGivenTaskExecutionReport(Long taskReportId) throws NoSuchTaskReportException {
-        if(taskExecutionReportService.findTaskReportById(taskReportId).isEmpty()) {
-            throw new NoSuchTaskReportException("Non-existent taskReportId passed.", new Throwable());
+    public ServiceResult<List<TaskStepExecutionReport>> getAllTaskStepExecutionReportGivenTaskExecutionReport(Long taskReportId) {
+        return stepReportsOf(taskReportId).map(ArrayList::new);
+    }
+
+    private ServiceResult<Set<TaskStepExecutionReport>> stepReportsOf(Long taskReportId) {
+        Optional<TaskExecutionReport> taskReport = taskExecutionReportService.findTaskReportById(taskReportId);
+        if (taskReport.isEmpty()) {
+            return ServiceResult.notFound("Non-existent taskReportId passed.");
         }
-        return new ArrayList<>(taskExecutionReportService.findTaskReportById(taskReportId).get().getTaskStepExecutionReports());
+        return ServiceResult.ok(taskReport.get().getTaskStepExecutionReports());
     }
 }
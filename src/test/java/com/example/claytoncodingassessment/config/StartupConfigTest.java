@@ -0,0 +1,35 @@
+package com.example.claytoncodingassessment.config;
+
+import com.example.claytoncodingassessment.model.LeaderboardEntry;
+import com.example.claytoncodingassessment.model.entities.AssignableSequenceGenerator;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.model.views.TaskReportSummary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupConfigTest {
+
+    @Test
+    @DisplayName("The native hints cover the generator, the entities with their Jackson references and the JSON bodies.")
+    void registersNativeHints() throws Exception {
+
+        RuntimeHints hints = new RuntimeHints();
+        new StartupConfig.NativeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(AssignableSequenceGenerator.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Task.class.getMethod("getTaskExecutionReport")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TaskExecutionReport.class.getMethod("getTaskStepExecutionReports")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TaskStepExecutionReport.class.getMethod("getTaskExecutionId")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onField(TaskExecutionReport.class.getDeclaredField("taskId")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(TaskReportSummary.class.getMethod("getSlowestStepName")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(LeaderboardEntry.class.getMethod("getRank")).test(hints));
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.repository.QueryBudget;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import com.example.claytoncodingassessment.service.ReportSummaryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fixed SQL statement budgets for every endpoint, at 1, 100 and 1,000 rows.
+ * Each run creates `rows` Tasks with one TaskReport and one StepReport each, and gives the first TaskReport `rows` StepReports.
+ * List endpoints are asked for a page of `rows`, so a per-row query shows up as a budget that no longer holds at 1,000.
+ * The persistence context, the Spring caches and Hibernate's second-level and query caches are cleared before each request,
+ * so every statement the request needs is counted.
+ */
+@Transactional
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:queryBudget")
+@AutoConfigureMockMvc
+class EndpointQueryBudgetTest {
+
+    // An insert may have to fetch the next block of pooled sequence ids.
+    private static final int ID_BLOCK = 1;
+    // A StepReport write reads and updates the ReportSummary of its TaskReport.
+    private static final int READ_MODEL = 2;
+    // A StepReport update or delete locks its TaskReport before it reads the StepReport.
+    private static final int LOCK = 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Task task;
+    private TaskExecutionReport taskReport;
+    private TaskStepExecutionReport stepReport;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("POST /tasks")
+    void createTask(int rows) throws Exception {
+        assertBudget(1 + ID_BLOCK, rows, post("/tasks").contentType(MediaType.APPLICATION_JSON).content("{\"title\":\"Budget Task\"}"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks")
+    void getAllTasks(int rows) throws Exception {
+        assertBudget(2, rows, get("/tasks").param("limit", String.valueOf(rows)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("POST /task/{taskId}/taskReports")
+    void createTaskExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        Task newTask = taskRepo.save(Task.builder().title("Budget Task").build());
+        clear();
+        assertBudget(4 + ID_BLOCK, rows, post("/task/{taskId}/taskReports", newTask.getId()).contentType(MediaType.APPLICATION_JSON).content("{}"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/taskReports")
+    void getAllTaskExecutionReports(int rows) throws Exception {
+        assertBudget(2, rows, get("/tasks/taskReports").param("limit", String.valueOf(rows)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/taskReports?view=summary")
+    void getAllTaskExecutionReportSummaries(int rows) throws Exception {
+        assertBudget(1, rows, get("/tasks/taskReports").param("view", "summary").param("limit", String.valueOf(rows)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/taskReports?status=RUNNING")
+    void getAllTaskExecutionReportsByStatus(int rows) throws Exception {
+        assertBudget(2, rows, get("/tasks/taskReports").param("status", "RUNNING").param("limit", String.valueOf(rows)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/taskReports?sortBy=execTime")
+    void getAllTaskExecutionReportsOrderedByExeTime(int rows) throws Exception {
+        assertBudget(2, rows, get("/tasks/taskReports").param("sortBy", "execTime").param("limit", String.valueOf(rows)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/{taskId}/taskReports/{taskReportId}")
+    void getTaskExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(1, rows, get("/tasks/{taskId}/taskReports/{taskReportId}", task.getId(), taskReport.getId()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("PUT /tasks/{taskId}/taskReports/{taskReportId}")
+    void updateTaskExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(2, rows, put("/tasks/{taskId}/taskReports/{taskReportId}", task.getId(), taskReport.getId())
+                .contentType(MediaType.APPLICATION_JSON).content("{\"errorMessage\":\"Budget\"}"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("DELETE /tasks/{taskId}/taskReports/{taskReportId}")
+    void deleteTaskExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(6, rows, delete("/tasks/{taskId}/taskReports/{taskReportId}", task.getId(), taskReport.getId()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("POST /tasks/{taskId}/taskReports/{taskReportId}/stepReports")
+    void createTaskStepExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(3 + ID_BLOCK + READ_MODEL, rows, post("/tasks/{taskId}/taskReports/{taskReportId}/stepReports", task.getId(), taskReport.getId())
+                .contentType(MediaType.APPLICATION_JSON).content("{\"stepName\":\"Budget Step\",\"status\":\"RUNNING\"}"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("POST /tasks/{taskId}/taskReports/{taskReportId}/stepReports/batch")
+    void createTaskStepExecutionReports(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(3 + ID_BLOCK + READ_MODEL, rows, post("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/batch", task.getId(), taskReport.getId())
+                .contentType(MediaType.APPLICATION_JSON).content("[{\"stepName\":\"Budget Step\",\"status\":\"RUNNING\"},"
+                        + "{\"stepName\":\"Budget Step\",\"status\":\"SUCCESS\"}]"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/taskReports/stepReports")
+    void getAllTaskStepExecutionReports(int rows) throws Exception {
+        assertBudget(1, rows, get("/tasks/taskReports/stepReports").param("limit", String.valueOf(rows)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}")
+    void getTaskStepExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(1, rows, get("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}",
+                task.getId(), taskReport.getId(), stepReport.getId()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("PUT /tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}")
+    void updateTaskStepExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(3 + LOCK + READ_MODEL, rows, put("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}",
+                task.getId(), taskReport.getId(), stepReport.getId())
+                .contentType(MediaType.APPLICATION_JSON).content("{\"stepName\":\"Budget Step\",\"status\":\"SUCCESS\"}"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("DELETE /tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}")
+    void deleteTaskStepExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        // With a single row the deleted StepReport is the slowest of its TaskReport, so the slowest one is recomputed.
+        assertBudget(3 + LOCK + READ_MODEL + 1, rows, delete("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}",
+                task.getId(), taskReport.getId(), stepReport.getId()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /taskReports/{taskReportId}/stepReports")
+    void getAllTaskStepExecutionReportsForGivenTaskExecutionReport(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(1, rows, get("/taskReports/{taskReportId}/stepReports", taskReport.getId()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /taskReports/{taskReportId}/stepReports?sortBy=startDateTime")
+    void getAllTaskStepExecutionReportsSortedByStartDateTime(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(1, rows, get("/taskReports/{taskReportId}/stepReports", taskReport.getId()).param("sortBy", "startDateTime"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1000})
+    @DisplayName("GET /taskReports/{taskReportId}/stepReports?sortBy=execTime")
+    void getAllTaskStepExecutionReportsSortedByExeTime(int rows) throws Exception {
+        fixture(rows);
+        assertBudget(1, rows, get("/taskReports/{taskReportId}/stepReports", taskReport.getId()).param("sortBy", "execTime"));
+    }
+
+    /**
+     * Runs the request against the fixture, built here if the test did not build it itself, and asserts its statement budget.
+     */
+    private void assertBudget(long budget, int rows, RequestBuilder request) throws Exception {
+        if (task == null) {
+            fixture(rows);
+        }
+        QueryBudget.assertAtMost(budget, () -> {
+            mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+            entityManager.flush();      // Writes are flushed by the test transaction, count them with the request.
+            return null;
+        });
+    }
+
+    /**
+     * Creates rows Tasks, each with a TaskReport holding one StepReport, and adds rows - 1 more StepReports to the first one,
+     * then builds their ReportSummaries.
+     */
+    private void fixture(int rows) {
+        LocalDateTime start = LocalDateTime.of(2023, 5, 9, 0, 0);
+        List<Task> tasks = new ArrayList<>(rows);
+        List<TaskExecutionReport> taskReports = new ArrayList<>(rows);
+        List<TaskStepExecutionReport> stepReports = new ArrayList<>(2 * rows);
+        for (int i = 0; i < rows; i++) {
+            Task t = Task.builder().title("Budget Task " + i).build();
+            TaskExecutionReport r = TaskExecutionReport.builder()
+                    .taskId(t)
+                    .startDateTime(start)
+                    .status(Status.RUNNING)
+                    .executionTimeSeconds((long) i)
+                    .taskStepExecutionReports(new HashSet<>())
+                    .build();
+            tasks.add(t);
+            taskReports.add(r);
+            int steps = i == 0 ? rows : 1;
+            for (int s = 0; s < steps; s++) {
+                TaskStepExecutionReport step = TaskStepExecutionReport.builder()
+                        .taskExecutionId(r)
+                        .stepName("Budget Step " + s)
+                        .startDateTime(start.plusSeconds(s))
+                        .executionTimeSeconds((long) s)
+                        .status(Status.SUCCESS)
+                        .build();
+                r.getTaskStepExecutionReports().add(step);
+                r.setStepCount(r.getStepCount() + 1);
+                r.setSuccessStepCount(r.getSuccessStepCount() + 1);
+                r.setStepExecutionTimeSeconds(r.getStepExecutionTimeSeconds() + s);
+                stepReports.add(step);
+            }
+        }
+        taskRepo.saveAll(tasks);
+        taskExecutionReportRepo.saveAll(taskReports);
+        taskStepExecutionReportRepo.saveAll(stepReports);
+        reportSummaryService.rebuildReportSummaries();     // The fixture bypasses the services, so project it in one go.
+        task = tasks.get(0);
+        taskReport = taskReports.get(0);
+        stepReport = stepReports.get(0);
+        clear();
+    }
+
+    private void clear() {
+        entityManager.flush();
+        entityManager.clear();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();      // Second-level and query caches.
+    }
+}
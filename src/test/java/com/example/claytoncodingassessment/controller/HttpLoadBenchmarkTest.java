@@ -0,0 +1,216 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end load test over HTTP against the app on a random port, backed by its own in-memory H2 database.
+ * Every virtual user replays the same mix: create a Task and its TaskReport, post a burst of StepReports, finish them
+ * one by one and poll the read endpoints in between. Latency is recorded per endpoint in HDR histograms.
+ * The report is printed and written as JSON, including the compressed histograms, so runs can be compared across commits.
+ * Skipped unless run explicitly: mvn test -Dtest=HttpLoadBenchmarkTest -Dbenchmark=true
+ * Tunable with -Dloadtest.users, -Dloadtest.iterations, -Dloadtest.warmupIterations, -Dloadtest.steps and -Dloadtest.report.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadTest",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.claytoncodingassessment=WARN"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HttpLoadBenchmarkTest {
+
+    private static final int USERS = Integer.getInteger("loadtest.users", 8);
+    private static final int ITERATIONS = Integer.getInteger("loadtest.iterations", 50);
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("loadtest.warmupIterations", 10);
+    private static final int STEPS_PER_REPORT = Integer.getInteger("loadtest.steps", 10);
+    private static final Path REPORT = Path.of(System.getProperty("loadtest.report", "target/load-test-report.json"));
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+    private static final Pattern ID = Pattern.compile("id(?: of)? (\\d+)");
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().build();
+    private final Map<String, ConcurrentHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    @Test
+    @DisplayName("Benchmark: HTTP latency percentiles and throughput per endpoint under a mixed workload.")
+    void mixedWorkload() throws Exception {
+        runUsers(WARMUP_ITERATIONS);
+        histograms.clear();
+        errors.clear();
+
+        long start = System.nanoTime();
+        runUsers(ITERATIONS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> report = report(elapsedSeconds);
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT.toFile(), report);
+        System.out.printf("Load test report written to %s%n", REPORT.toAbsolutePath());
+
+        assertEquals(0, errors.values().stream().mapToLong(AtomicLong::get).sum(), "Requests failed: " + errors);
+    }
+
+    private void runUsers(int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        try {
+            List<Future<?>> users = new ArrayList<>();
+            for (int u = 0; u < USERS; u++) {
+                users.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        scenario();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> user : users) {
+                user.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * One pass of the workload, the way a task runner reports a run while a dashboard polls it.
+     */
+    private void scenario() throws Exception {
+        long taskId = idOf(send("POST /tasks", "POST", "/tasks", "{\"title\":\"Load Task\"}"));
+        long taskReportId = idOf(send("POST /task/{taskId}/taskReports", "POST", "/task/" + taskId + "/taskReports", "{}"));
+        String taskReport = "/tasks/" + taskId + "/taskReports/" + taskReportId;
+
+        List<Long> stepReportIds = new ArrayList<>(STEPS_PER_REPORT);
+        for (int s = 0; s < STEPS_PER_REPORT; s++) {
+            stepReportIds.add(idOf(send("POST /tasks/{taskId}/taskReports/{taskReportId}/stepReports", "POST",
+                    taskReport + "/stepReports", "{\"stepName\":\"step" + s + "\",\"status\":\"RUNNING\"}")));
+        }
+        send("GET /tasks/{taskId}/taskReports/{taskReportId}", "GET", taskReport, null);
+
+        for (int s = 0; s < stepReportIds.size(); s++) {
+            String status = s == stepReportIds.size() - 1 && taskReportId % 10 == 0 ? "FAILURE" : "SUCCESS";
+            send("PUT /tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}", "PUT",
+                    taskReport + "/stepReports/" + stepReportIds.get(s), "{\"stepName\":\"step" + s + "\",\"status\":\"" + status + "\"}");
+            if (s % 3 == 0) {
+                send("GET /tasks/{taskId}/taskReports/{taskReportId}", "GET", taskReport, null);
+            }
+        }
+
+        send("GET /tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}", "GET",
+                taskReport + "/stepReports/" + stepReportIds.get(0), null);
+        send("GET /taskReports/{taskReportId}/stepReports?sortBy=execTime", "GET",
+                "/taskReports/" + taskReportId + "/stepReports?sortBy=execTime", null);
+        send("GET /tasks", "GET", "/tasks?limit=50", null);
+        send("GET /tasks/taskReports?status=RUNNING", "GET", "/tasks/taskReports?status=RUNNING&limit=50", null);
+        send("GET /tasks/taskReports/stepReports", "GET", "/tasks/taskReports/stepReports?limit=50", null);
+    }
+
+    private String send(String endpoint, String method, String path, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (json != null) {
+            request.header("Content-Type", "application/json");
+        }
+        request.method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        histograms.computeIfAbsent(endpoint, e -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+        if (response.statusCode() >= 300) {
+            errors.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+            throw new IllegalStateException(endpoint + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static long idOf(String message) {
+        Matcher matcher = ID.matcher(message);
+        if (!matcher.find()) {
+            throw new IllegalStateException("No id in response: " + message);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private Map<String, Object> report(double elapsedSeconds) {
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+
+        System.out.printf("%-80s %8s %10s %9s %9s %9s %9s%n", "endpoint (latency in ms)", "count", "req/s", "p50", "p99", "p99.9", "max");
+        for (Map.Entry<String, ConcurrentHistogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            all.add(histogram);
+            endpoints.put(entry.getKey(), summary(histogram, elapsedSeconds,
+                    errors.getOrDefault(entry.getKey(), new AtomicLong()).get()));
+            print(entry.getKey(), histogram, elapsedSeconds);
+        }
+        print("all", all, elapsedSeconds);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("users", USERS);
+        report.put("iterationsPerUser", ITERATIONS);
+        report.put("stepsPerReport", STEPS_PER_REPORT);
+        report.put("elapsedSeconds", elapsedSeconds);
+        report.put("total", summary(all, elapsedSeconds, errors.values().stream().mapToLong(AtomicLong::get).sum()));
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private static Map<String, Object> summary(Histogram histogram, double elapsedSeconds, long errorCount) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errorCount);
+        summary.put("throughputPerSecond", histogram.getTotalCount() / elapsedSeconds);
+        summary.put("meanMicros", histogram.getMean());
+        summary.put("p50Micros", histogram.getValueAtPercentile(50));
+        summary.put("p90Micros", histogram.getValueAtPercentile(90));
+        summary.put("p99Micros", histogram.getValueAtPercentile(99));
+        summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+        summary.put("maxMicros", histogram.getMaxValue());
+        summary.put("histogram", encode(histogram));      // Lossless, decode with Histogram.decodeFromCompressedByteBuffer.
+        return summary;
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static void print(String endpoint, Histogram histogram, double elapsedSeconds) {
+        System.out.printf("%-80s %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, histogram.getTotalCount(),
+                histogram.getTotalCount() / elapsedSeconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.repository.QueryBudget;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import com.example.claytoncodingassessment.service.serviceimpl.IdempotencyKeys;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyKeyFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    private Task task;
+    private TaskExecutionReport taskReport;
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        task = taskRepo.save(Task.builder().title("Idempotent Task").build());
+        taskReport = taskExecutionReportRepo.save(TaskExecutionReport.builder().taskId(task).build());
+        key = UUID.randomUUID().toString();
+    }
+
+    @Test
+    @DisplayName("A retried create gets the original response replayed without running any SQL.")
+    void replaysRetriedCreate() throws Exception {
+
+        MockHttpServletResponse first = mockMvc.perform(createStepReport(key)).andReturn().getResponse();
+        MockHttpServletResponse retry = QueryBudget.assertAtMost(0, () -> mockMvc.perform(createStepReport(key)).andReturn().getResponse());
+
+        assertEquals(201, first.getStatus());
+        assertNull(first.getHeader(IdempotencyKeyFilter.IDEMPOTENT_REPLAYED));
+        assertEquals(201, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyKeyFilter.IDEMPOTENT_REPLAYED));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(first.getContentType(), retry.getContentType());
+        assertEquals(1, taskStepExecutionReportRepo.findAll().stream()
+                .filter(t -> t.getTaskExecutionId().getId().equals(taskReport.getId())).count());
+
+        assertEquals(201, mockMvc.perform(createStepReport(UUID.randomUUID().toString())).andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    @DisplayName("A key that has left the LRU is still found in the IdempotencyRecord table.")
+    void replaysFromTable() throws Exception {
+
+        MockHttpServletResponse first = mockMvc.perform(createStepReport(key)).andReturn().getResponse();
+        ((Cache<?, ?>) ReflectionTestUtils.getField(idempotencyKeys, "recentRecords")).invalidateAll();
+
+        MockHttpServletResponse retry = QueryBudget.assertAtMost(1, () -> mockMvc.perform(createStepReport(key)).andReturn().getResponse());
+
+        assertEquals("true", retry.getHeader(IdempotencyKeyFilter.IDEMPOTENT_REPLAYED));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Keys are scoped to the method and path, and failed requests are not stored.")
+    void scopesKeysAndSkipsFailures() throws Exception {
+
+        mockMvc.perform(createStepReport(key));
+        MockHttpServletResponse update = mockMvc.perform(put("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}",
+                        task.getId(), taskReport.getId(), Long.MAX_VALUE)
+                .header(IdempotencyKeyFilter.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"stepName\":\"Idempotent Step\",\"status\":\"SUCCESS\"}")).andReturn().getResponse();
+        MockHttpServletResponse missingTask = mockMvc.perform(post("/tasks/{taskId}/taskReports/{taskReportId}/stepReports", Long.MAX_VALUE, taskReport.getId())
+                .header(IdempotencyKeyFilter.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"stepName\":\"Idempotent Step\",\"status\":\"RUNNING\"}")).andReturn().getResponse();
+
+        assertEquals(404, update.getStatus());
+        assertNull(update.getHeader(IdempotencyKeyFilter.IDEMPOTENT_REPLAYED));
+        assertEquals(404, missingTask.getStatus());
+        assertTrue(idempotencyKeys.find("PUT /tasks/" + task.getId() + "/taskReports/" + taskReport.getId() + "/stepReports/" + Long.MAX_VALUE + " " + key).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A retry while the original request is still running is refused.")
+    void refusesConcurrentRetry() throws Exception {
+
+        String requestKey = "POST /tasks/" + task.getId() + "/taskReports/" + taskReport.getId() + "/stepReports " + key;
+        assertTrue(idempotencyKeys.begin(requestKey));
+        try {
+            assertEquals(409, mockMvc.perform(createStepReport(key)).andReturn().getResponse().getStatus());
+        } finally {
+            idempotencyKeys.abandon(requestKey);
+        }
+        assertEquals(400, mockMvc.perform(createStepReport(" ")).andReturn().getResponse().getStatus());
+    }
+
+    private MockHttpServletRequestBuilder createStepReport(String idempotencyKey) {
+        return post("/tasks/{taskId}/taskReports/{taskReportId}/stepReports", task.getId(), taskReport.getId())
+                .header(IdempotencyKeyFilter.IDEMPOTENCY_KEY, idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"stepName\":\"Idempotent Step\",\"status\":\"RUNNING\"}");
+    }
+}
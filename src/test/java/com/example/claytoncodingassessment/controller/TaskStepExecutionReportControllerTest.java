@@ -0,0 +1,82 @@
+package com.example.claytoncodingassessment.controller;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskStepExecutionReportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+
+    private Task task;
+    private TaskExecutionReport taskReport;
+
+    @BeforeEach
+    void setUp() {
+        task = taskRepo.save(Task.builder().title("Timestamp Task").build());
+        taskReport = taskExecutionReportRepo.save(TaskExecutionReport.builder().taskId(task).build());
+    }
+
+    @Test
+    @DisplayName("A create whose endDateTime is before its startDateTime gets a 400 and stores nothing.")
+    void rejectsEndBeforeStart() throws Exception {
+
+        MockHttpServletResponse response = mockMvc.perform(post("/tasks/{taskId}/taskReports/{taskReportId}/stepReports", task.getId(), taskReport.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"stepName\":\"Flushed Step\",\"status\":\"SUCCESS\","
+                        + "\"startDateTime\":\"2023-05-09T23:55:33\",\"endDateTime\":\"2023-05-09T23:55:32\"}")).andReturn().getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertEquals("endDateTime 2023-05-09T23:55:32 is before startDateTime 2023-05-09T23:55:33.", response.getContentAsString());
+        assertTrue(taskStepExecutionReportRepo.findAll().stream().noneMatch(t -> t.getTaskExecutionId().getId().equals(taskReport.getId())));
+    }
+
+    @Test
+    @DisplayName("An update whose endDateTime is past the allowed clock skew gets a 400 and leaves the StepReport as it was.")
+    void rejectsFutureEnd() throws Exception {
+
+        TaskStepExecutionReport stepReport = taskStepExecutionReportRepo.save(TaskStepExecutionReport.builder()
+                .taskExecutionId(taskReport).stepName("Running Step").status(Status.RUNNING)
+                .startDateTime(LocalDateTime.now().minusMinutes(1)).build());
+
+        MockHttpServletResponse response = mockMvc.perform(put("/tasks/{taskId}/taskReports/{taskReportId}/stepReports/{stepReportId}",
+                        task.getId(), taskReport.getId(), stepReport.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"stepName\":\"Running Step\",\"status\":\"SUCCESS\",\"endDateTime\":\"" + LocalDateTime.now().plusDays(1) + "\"}"))
+                .andReturn().getResponse();
+
+        assertEquals(400, response.getStatus());
+        assertTrue(response.getContentAsString().endsWith(" is in the future."));
+        assertEquals(Status.RUNNING, taskStepExecutionReportRepo.findById(stepReport.getId()).get().getStatus());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.claytoncodingassessment.repository;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL statements a block of code runs on the calling thread, through the QueryCounter statement inspector.
+ * Only statements run on the calling thread are seen, so the block must not hand its work to another thread.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    @FunctionalInterface
+    public interface Block<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Runs the block and returns the number of statements it ran.
+     */
+    public static long count(Block<?> block) throws Exception {
+        QueryCounter.reset();
+        block.run();
+        return QueryCounter.count();
+    }
+
+    /**
+     * Runs the block and fails if it ran more than budget statements.
+     */
+    public static <T> T assertAtMost(long budget, Block<T> block) throws Exception {
+        QueryCounter.reset();
+        T result = block.run();
+        long used = QueryCounter.count();
+        assertTrue(used <= budget, () -> "Expected at most " + budget + " SQL statements but " + used + " ran.");
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.claytoncodingassessment.repository;
+
+import com.example.claytoncodingassessment.model.entities.Task;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@Transactional
+@SpringBootTest
+class QueryCounterTest {
+
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Testing every statement Hibernate prepares on the thread is counted.")
+    void countsStatements() {
+        taskRepo.save(Task.builder().title("Counted Task").build());
+
+        QueryCounter.reset();
+        entityManager.flush();      // The insert.
+        taskRepo.count();
+        taskRepo.count();
+
+        assertEquals(3, QueryCounter.count());
+        QueryCounter.reset();
+        assertEquals(0, QueryCounter.count());
+    }
+
+    @Test
+    @DisplayName("Testing the RUNNING gauges are registered.")
+    void runningGauges() {
+        assertNotNull(meterRegistry.find("task.reports.running").gauge());
+        assertNotNull(meterRegistry.find("task.step.reports.running").gauge());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.claytoncodingassessment.repository;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import com.example.claytoncodingassessment.service.TaskService;
+import com.example.claytoncodingassessment.service.TaskStepExecutionReportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Insert throughput of bulk StepReport creation, row by row against JDBC-batched.
+ * Row by row (a JDBC batch size of 1) stands in for the old IDENTITY ids, where Hibernate had to run every insert on its own to read the key back.
+ * Skipped unless run explicitly: mvn test -Dtest=StepInsertBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StepInsertBenchmarkTest {
+
+    private static final int STEPS_PER_ROUND = 5_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportService taskStepExecutionReportService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Benchmark: bulk StepReport insert throughput, row by row against batched.")
+    void stepInsertThroughput() {
+        double rowByRow = rowsPerSecond(1);
+        double batched = rowsPerSecond(null);
+
+        System.out.printf("StepReport inserts, %d rows per round:%n", STEPS_PER_ROUND);
+        System.out.printf("  row by row : %,.0f rows/s%n", rowByRow);
+        System.out.printf("  batched    : %,.0f rows/s (x%.2f)%n", batched, batched / rowByRow);
+        assertTrue(batched > 0);
+    }
+
+    private double rowsPerSecond(Integer jdbcBatchSize) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            insertRound(jdbcBatchSize);
+        }
+        long nanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            nanos += insertRound(jdbcBatchSize);
+        }
+        return (double) STEPS_PER_ROUND * MEASURED_ROUNDS / (nanos / 1e9);
+    }
+
+    /**
+     * Creates a Task and TaskReport, then times creating and flushing STEPS_PER_ROUND StepReports in one transaction.
+     */
+    private long insertRound(Integer jdbcBatchSize) {
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);   // null falls back to hibernate.jdbc.batch_size.
+            Task task = taskService.createTask(Task.builder().title("Benchmark Task").build());
+            TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(), TaskExecutionReport.builder().build()).getValue();
+            entityManager.flush();
+
+            List<TaskStepExecutionReport> stepReports = new ArrayList<>(STEPS_PER_ROUND);
+            for (int i = 0; i < STEPS_PER_ROUND; i++) {
+                stepReports.add(TaskStepExecutionReport.builder().stepName("step" + i).status(Status.RUNNING).build());
+            }
+            long start = System.nanoTime();
+            taskStepExecutionReportService.createTaskStepExecutionReports(task.getId(), taskReport.getId(), stepReports);
+            entityManager.flush();
+            long elapsed = System.nanoTime() - start;
+            entityManager.clear();
+            return elapsed;
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.claytoncodingassessment.service;
+
+import com.example.claytoncodingassessment.config.CacheConfig;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against the real, proxied services so the cache annotations are in play.
+ */
+@Transactional
+@SpringBootTest
+class EntityCacheTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportService taskStepExecutionReportService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    @DisplayName("Testing a Task lookup is cached and evicted when its TaskReport is created.")
+    void taskCacheIsEvictedByTaskReportCreate() {
+        Cache tasks = cacheManager.getCache(CacheConfig.TASKS);
+        Task task = taskService.createTask(Task.builder().title("Cached Task").build());
+
+        taskService.findTaskById(task.getId());
+        assertNotNull(tasks.get(task.getId()));
+
+        taskExecutionReportService.createTaskExecutionReport(task.getId(), TaskExecutionReport.builder().build());
+        assertNull(tasks.get(task.getId()));
+        taskService.findTaskById(task.getId());
+        assertNotNull(tasks.get(task.getId()));
+    }
+
+    @Test
+    @DisplayName("Testing a cached TaskReport is evicted by StepReport and TaskReport writes.")
+    void taskReportCacheIsEvictedByWrites() {
+        Cache taskReports = cacheManager.getCache(CacheConfig.TASK_REPORTS);
+        Task task = taskService.createTask(Task.builder().title("Cached Task").build());
+        Long taskReportId = taskExecutionReportService.createTaskExecutionReport(task.getId(), TaskExecutionReport.builder().build()).getValue().getId();
+
+        assertEquals(0, taskExecutionReportService.getTaskExecutionReport(task.getId(), taskReportId).getValue().getStepCount());
+        assertNotNull(taskReports.get(taskReportId));
+
+        taskStepExecutionReportService.createTaskStepExecutionReport(task.getId(), taskReportId,
+                TaskStepExecutionReport.builder().stepName("step").status(Status.RUNNING).build());
+        assertNull(taskReports.get(taskReportId));
+
+        TaskExecutionReport taskReport = taskExecutionReportService.getTaskExecutionReport(task.getId(), taskReportId).getValue();
+        assertEquals(1, taskReport.getStepCount());
+        assertEquals(Status.RUNNING, taskReport.getStatus());
+
+        taskExecutionReportService.deleteTaskExecutionReport(task.getId(), taskReportId);
+        assertNull(taskReports.get(taskReportId));
+    }
+
+    @Test
+    @DisplayName("Testing a TaskReport lookup that misses is not cached, so a TaskReport created later is found.")
+    void taskReportCacheMissIsNotCached() {
+        Cache taskReports = cacheManager.getCache(CacheConfig.TASK_REPORTS);
+
+        assertTrue(taskExecutionReportService.findTaskReportById(-1L).isEmpty());
+        assertNull(taskReports.get(-1L));
+    }
+}
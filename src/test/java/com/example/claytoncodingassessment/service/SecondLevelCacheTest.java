@@ -0,0 +1,121 @@
+package com.example.claytoncodingassessment.service;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.repository.QueryBudget;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Second-level cache entries are only written when a transaction commits, so these tests let the services commit,
+ * against their own database to keep the rows away from the other tests.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:secondLevelCache")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportService taskStepExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LocalDateTime start = LocalDateTime.of(2023, 5, 9, 12, 0);
+
+    @Test
+    @DisplayName("A StepReport update replaces the cached StepReport and TaskReport and invalidates the cached status counts.")
+    void updateRefreshesCachedState() throws Exception {
+
+        Task task = taskService.createTask(Task.builder().title("Cached Task").build());
+        Long taskReportId = taskExecutionReportService.createTaskExecutionReport(task.getId(), TaskExecutionReport.builder().build()).getValue().getId();
+        Long stepReportId = taskStepExecutionReportService.createTaskStepExecutionReport(task.getId(), taskReportId,
+                TaskStepExecutionReport.builder().stepName("step").status(Status.RUNNING).startDateTime(start).build()).getValue().getId();
+        assertTrue(entityManagerFactory.unwrap(SessionFactory.class).getCache().containsEntity(TaskStepExecutionReport.class, stepReportId));
+
+        long running = transactionTemplate.execute(status -> taskStepExecutionReportRepo.countByStatus(Status.RUNNING));
+        long cachedRunning = QueryBudget.assertAtMost(0, () ->
+                transactionTemplate.execute(status -> taskStepExecutionReportRepo.countByStatus(Status.RUNNING)));
+        assertEquals(running, cachedRunning);
+
+        taskStepExecutionReportService.updateTaskStepExecutionReport(task.getId(), taskReportId, stepReportId,
+                TaskStepExecutionReport.builder().stepName("step").status(Status.SUCCESS).startDateTime(start).endDateTime(start.plusSeconds(2)).build());
+
+        long runningAfterUpdate = transactionTemplate.execute(status -> taskStepExecutionReportRepo.countByStatus(Status.RUNNING));
+        assertEquals(running - 1, runningAfterUpdate);
+        TaskStepExecutionReport stepReport = QueryBudget.assertAtMost(0, () ->
+                transactionTemplate.execute(status -> entityManager.find(TaskStepExecutionReport.class, stepReportId)));
+        assertEquals(Status.SUCCESS, stepReport.getStatus());
+        assertEquals(2_000_000L, stepReport.getExecutionTimeMicros());
+        TaskExecutionReport taskReport = QueryBudget.assertAtMost(0, () ->
+                transactionTemplate.execute(status -> entityManager.find(TaskExecutionReport.class, taskReportId)));
+        assertEquals(Status.SUCCESS, taskReport.getStatus());
+        assertEquals(1, taskReport.getSuccessStepCount());
+    }
+
+    @Test
+    @DisplayName("StepReport creates and deletes evict the cached StepReports collection, and deletes evict the entities.")
+    void createAndDeleteEvictCachedState() throws Exception {
+
+        Task task = taskService.createTask(Task.builder().title("Cached Task").build());
+        Long taskReportId = taskExecutionReportService.createTaskExecutionReport(task.getId(), TaskExecutionReport.builder().build()).getValue().getId();
+        Long first = createStep(task, taskReportId, "first");
+        Long second = createStep(task, taskReportId, "second");
+        assertStepReportCount(taskReportId, 2, false);
+        assertStepReportCount(taskReportId, 2, true);
+
+        createStep(task, taskReportId, "third");
+        assertStepReportCount(taskReportId, 3, false);
+        assertStepReportCount(taskReportId, 3, true);
+
+        taskStepExecutionReportService.deleteTaskStepExecutionReport(task.getId(), taskReportId, first);
+        assertNull(transactionTemplate.execute(status -> entityManager.find(TaskStepExecutionReport.class, first)));
+        assertStepReportCount(taskReportId, 2, false);
+
+        taskExecutionReportService.deleteTaskExecutionReport(task.getId(), taskReportId);
+        assertNull(transactionTemplate.execute(status -> entityManager.find(TaskExecutionReport.class, taskReportId)));
+        assertNull(transactionTemplate.execute(status -> entityManager.find(TaskStepExecutionReport.class, second)));
+    }
+
+    private Long createStep(Task task, Long taskReportId, String stepName) {
+        return taskStepExecutionReportService.createTaskStepExecutionReport(task.getId(), taskReportId, TaskStepExecutionReport.builder()
+                .stepName(stepName)
+                .status(Status.SUCCESS)
+                .startDateTime(start)
+                .endDateTime(start.plusSeconds(1))
+                .build()).getValue().getId();
+    }
+
+    /**
+     * Reads the StepReports of the TaskReport in a new persistence context, so only the second-level cache can spare
+     * the queries. An entry a write has invalidated stays behind as a lock, hence the query count rather than contains().
+     */
+    private void assertStepReportCount(Long taskReportId, int expected, boolean cached) throws Exception {
+        int[] count = new int[1];
+        long statements = QueryBudget.count(() -> count[0] = transactionTemplate.execute(status ->
+                entityManager.find(TaskExecutionReport.class, taskReportId).getTaskStepExecutionReports().size()));
+        assertEquals(expected, count[0]);
+        assertEquals(cached, statements == 0, () -> statements + " SQL statements ran.");
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.claytoncodingassessment.service;
+
+import com.example.claytoncodingassessment.model.AggregateConsistencyReport;
+import com.example.claytoncodingassessment.model.ServiceResult;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Step aggregates under concurrent StepReport writes. Each write commits its own transaction, so these tests run
+ * against their own database to keep the rows away from the other tests.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stepAggregatesConcurrency")
+class StepAggregatesConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int STEPS_PER_THREAD = 25;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportService taskStepExecutionReportService;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+
+    private final LocalDateTime start = LocalDateTime.of(2023, 5, 9, 12, 0);
+
+    @Test
+    @DisplayName("StepReports created concurrently for one TaskReport are all counted in its aggregates.")
+    void concurrentCreatesKeepAggregates() throws Exception {
+
+        Task task = taskService.createTask(Task.builder().title("Concurrent Task").build());
+        Long taskReportId = taskExecutionReportService.createTaskExecutionReport(task.getId(), TaskExecutionReport.builder().build()).getValue().getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int writer = i;
+            writers.add(executor.submit(() -> {
+                ready.await();
+                for (int j = 0; j < STEPS_PER_THREAD; j++) {
+                    Status status = j % 2 == 0 ? Status.SUCCESS : Status.RUNNING;
+                    ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportService.createTaskStepExecutionReport(task.getId(), taskReportId,
+                            TaskStepExecutionReport.builder()
+                                    .stepName("step " + writer + "-" + j)
+                                    .status(status)
+                                    .startDateTime(start)
+                                    .endDateTime(start.plusSeconds(1))
+                                    .build());
+                    assertTrue(result.isSuccess(), result::getMessage);
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        try {
+            for (Future<?> w : writers) {
+                w.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        TaskExecutionReport taskReport = taskExecutionReportRepo.findById(taskReportId).get();
+        int steps = THREADS * STEPS_PER_THREAD;
+        int successSteps = THREADS * ((STEPS_PER_THREAD + 1) / 2);
+        assertEquals(steps, taskReport.getStepCount());
+        assertEquals(successSteps, taskReport.getSuccessStepCount());
+        assertEquals(steps - successSteps, taskReport.getRunningStepCount());
+        assertEquals(successSteps, taskReport.getStepExecutionTimeSeconds());
+
+        AggregateConsistencyReport check = taskExecutionReportService.checkAggregateConsistency(taskReportId, false).getValue();
+        assertTrue(check.isConsistent(), () -> "stored " + check.getStored() + ", recomputed " + check.getRecomputed());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.LeaderboardEntry;
+import com.example.claytoncodingassessment.model.LeaderboardOrder;
+import com.example.claytoncodingassessment.model.TaskReportChanged;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+@SpringBootTest
+class ExecutionTimeLeaderboardTest {
+
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Fastest, slowest and rank queries match a full sort through inserts, moves and removals.")
+    void matchesFullSort() {
+
+        ExecutionTimeLeaderboard executionTimeLeaderboard = new ExecutionTimeLeaderboard();
+        Map<Long, Long> executionTimes = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            long id = random.nextInt(500);
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                executionTimeLeaderboard.onTaskReportChanged(changed(TaskReportChanged.Type.DELETED, id, null));
+                executionTimes.remove(id);
+            } else if (operation == 1) {
+                executionTimeLeaderboard.onTaskReportChanged(changed(TaskReportChanged.Type.UPDATED, id, null));     // Back to RUNNING.
+                executionTimes.remove(id);
+            } else {
+                long micros = random.nextInt(100);      // Plenty of ties, ordered by id.
+                executionTimeLeaderboard.onTaskReportChanged(changed(TaskReportChanged.Type.UPDATED, id, micros));
+                executionTimes.put(id, micros);
+            }
+        }
+
+        List<Long> sorted = executionTimes.keySet().stream()
+                .sorted(Comparator.comparing((Long id) -> executionTimes.get(id)).thenComparing(id -> id))
+                .toList();
+        assertEquals(sorted.size(), executionTimeLeaderboard.size());
+        assertEquals(sorted.subList(0, 10), ids(executionTimeLeaderboard.leaders(LeaderboardOrder.FASTEST, 10)));
+        List<Long> slowest = new ArrayList<>(sorted.subList(sorted.size() - 10, sorted.size()));
+        Collections.reverse(slowest);
+        assertEquals(slowest, ids(executionTimeLeaderboard.leaders(LeaderboardOrder.SLOWEST, 10)));
+        assertEquals(sorted.size(), executionTimeLeaderboard.leaders(LeaderboardOrder.FASTEST, Integer.MAX_VALUE).size());
+        for (int i = 0; i < sorted.size(); i++) {
+            LeaderboardEntry entry = executionTimeLeaderboard.rank(sorted.get(i)).get();
+            assertEquals(i + 1, entry.getRank());
+            assertEquals(executionTimes.get(sorted.get(i)), entry.getExecutionTimeMicros());
+        }
+        assertTrue(executionTimeLeaderboard.rank(-1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rebuilding reads the completed TaskReports from the database.")
+    void rebuildsFromDatabase() {
+
+        Task task = taskRepo.save(Task.builder().title("Leaderboard Task").build());
+        Task otherTask = taskRepo.save(Task.builder().title("Leaderboard Task").build());
+        Task runningTask = taskRepo.save(Task.builder().title("Leaderboard Task").build());
+        TaskExecutionReport slower = taskExecutionReportRepo.save(TaskExecutionReport.builder().taskId(task).executionTimeMicros(Long.MAX_VALUE).build());
+        TaskExecutionReport faster = taskExecutionReportRepo.save(TaskExecutionReport.builder().taskId(otherTask).executionTimeMicros(Long.MAX_VALUE - 1).build());
+        TaskExecutionReport running = taskExecutionReportRepo.save(TaskExecutionReport.builder().taskId(runningTask).build());
+        entityManager.flush();
+        ExecutionTimeLeaderboard executionTimeLeaderboard = new ExecutionTimeLeaderboard();
+        ReflectionTestUtils.setField(executionTimeLeaderboard, "taskExecutionReportRepo", taskExecutionReportRepo);
+        ReflectionTestUtils.setField(executionTimeLeaderboard, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(executionTimeLeaderboard, "entityManager", entityManager);
+
+        executionTimeLeaderboard.rebuild();
+
+        assertEquals(List.of(slower.getId(), faster.getId()), ids(executionTimeLeaderboard.leaders(LeaderboardOrder.SLOWEST, 2)));
+        assertEquals(executionTimeLeaderboard.size(), executionTimeLeaderboard.rank(slower.getId()).get().getRank());
+        assertTrue(executionTimeLeaderboard.rank(running.getId()).isEmpty());
+    }
+
+    private static TaskReportChanged changed(TaskReportChanged.Type type, Long taskReportId, Long executionTimeMicros) {
+        return TaskReportChanged.builder().type(type).taskReportId(taskReportId).executionTimeMicros(executionTimeMicros).build();
+    }
+
+    private static List<Long> ids(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getTaskReportId).toList();
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import com.example.claytoncodingassessment.service.TaskService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Runs on its own database and outside a test transaction, since events are only delivered once a write has committed.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:reportEvents")
+@AutoConfigureMockMvc
+class ReportEventBroadcasterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportServiceImpl taskStepExecutionReportServiceImpl;
+
+    @Test
+    @DisplayName("Committed StepReport writes and status changes reach the TaskReport stream and the filtered global feed.")
+    void streamsCommittedEvents() throws Exception {
+
+        Task task = taskService.createTask(Task.builder().title("Event Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(),
+                TaskExecutionReport.builder().build()).getValue();
+        MockHttpServletResponse taskReportStream = mockMvc.perform(get("/tasks/{taskId}/taskReports/{taskReportId}/events", task.getId(), taskReport.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+        MockHttpServletResponse statusFeed = mockMvc.perform(get("/taskReports/events").param("type", "STATUS_CHANGED"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        TaskStepExecutionReport stepReport = taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(task.getId(), taskReport.getId(),
+                TaskStepExecutionReport.builder().stepName("Event Step").status(Status.RUNNING).build()).getValue();
+        taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(task.getId(), taskReport.getId(), stepReport.getId());
+
+        awaitTrue(() -> contentOf(taskReportStream).contains("event:STEP_DELETED"));
+        String events = contentOf(taskReportStream);
+        assertTrue(events.indexOf("event:STEP_CREATED") < events.indexOf("event:STATUS_CHANGED"));
+        assertTrue(events.contains("\"taskReportStatus\":\"RUNNING\""));
+        awaitTrue(() -> contentOf(statusFeed).split("event:STATUS_CHANGED", -1).length == 3);      // RUNNING, then none once the step is gone.
+        assertFalse(contentOf(statusFeed).contains("event:STEP_"));
+    }
+
+    @Test
+    @DisplayName("A TaskReport delete reaches both streams as one event, and ends the TaskReport stream.")
+    void streamsTaskReportDelete() throws Exception {
+
+        Task task = taskService.createTask(Task.builder().title("Event Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(),
+                TaskExecutionReport.builder().build()).getValue();
+        taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(task.getId(), taskReport.getId(),
+                TaskStepExecutionReport.builder().stepName("Event Step").status(Status.RUNNING).build());
+        MvcResult taskReportStream = mockMvc.perform(get("/tasks/{taskId}/taskReports/{taskReportId}/events", task.getId(), taskReport.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse deleteFeed = mockMvc.perform(get("/taskReports/events").param("type", "TASK_REPORT_DELETED"))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        taskExecutionReportService.deleteTaskExecutionReport(task.getId(), taskReport.getId());
+
+        MockAsyncContext asyncContext = (MockAsyncContext) taskReportStream.getRequest().getAsyncContext();
+        awaitTrue(() -> asyncContext.getDispatchedPath() != null);
+        String events = contentOf(taskReportStream.getResponse());
+        assertTrue(events.contains("event:TASK_REPORT_DELETED"));
+        assertFalse(events.contains("event:STEP_DELETED"));
+        awaitTrue(() -> contentOf(deleteFeed).contains("\"taskReportId\":" + taskReport.getId() + ","));
+    }
+
+    @Test
+    @DisplayName("A subscriber that falls behind is disconnected without holding up publishing or other subscribers.")
+    void disconnectsSlowSubscriber() throws Exception {
+
+        ReportEventBroadcaster reportEventBroadcaster = newBroadcaster(Duration.ofHours(1));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        reportEventBroadcaster.register(slow, event -> true, null);
+        reportEventBroadcaster.register(fast, event -> true, null);
+
+        for (int i = 1; i <= 5; i++) {
+            reportEventBroadcaster.onReportEvent(ReportEvent.ofStatus((long) i, Status.RUNNING));
+            int published = i;
+            awaitTrue(() -> fast.sent.size() == published);     // The fast subscriber keeps up, the slow one is stuck on its first event.
+        }
+
+        awaitTrue(() -> slow.completed);        // Once its blocked send has been interrupted.
+        assertFalse(fast.completed);
+        assertEquals(1, reportEventBroadcaster.size());
+        release.countDown();
+        reportEventBroadcaster.close();
+    }
+
+    @Test
+    @DisplayName("A subscriber whose send stays blocked past send-timeout is disconnected and frees its sender thread.")
+    void disconnectsBlockedSubscriber() throws Exception {
+
+        ReportEventBroadcaster reportEventBroadcaster = newBroadcaster(Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter blocked = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        reportEventBroadcaster.register(blocked, event -> true, null);
+        reportEventBroadcaster.register(fast, event -> true, null);
+
+        reportEventBroadcaster.onReportEvent(ReportEvent.ofStatus(1L, Status.RUNNING));
+        awaitTrue(() -> blocked.sending && fast.sent.size() == 1);
+        Thread.sleep(150);
+        reportEventBroadcaster.onReportEvent(ReportEvent.ofStatus(2L, Status.RUNNING));
+        reportEventBroadcaster.onReportEvent(ReportEvent.ofStatus(3L, Status.RUNNING));
+
+        awaitTrue(() -> blocked.completed && fast.sent.size() == 3);
+        assertTrue(blocked.sent.isEmpty());
+        assertEquals(1, reportEventBroadcaster.size());
+        release.countDown();
+        reportEventBroadcaster.close();
+    }
+
+    private static ReportEventBroadcaster newBroadcaster(Duration sendTimeout) {
+        ReportEventBroadcaster reportEventBroadcaster = new ReportEventBroadcaster();
+        ReflectionTestUtils.setField(reportEventBroadcaster, "subscriberBuffer", 2);
+        ReflectionTestUtils.setField(reportEventBroadcaster, "senderThreads", 2);
+        ReflectionTestUtils.setField(reportEventBroadcaster, "sendTimeout", sendTimeout);
+        reportEventBroadcaster.init();
+        return reportEventBroadcaster;
+    }
+
+    /**
+     * Records what is sent, optionally blocking each send until released. Sends hold the emitter's lock, as in SseEmitter.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final List<SseEventBuilder> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean sending;
+        private volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public synchronized void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            sent.add(builder);
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+
+    private static String contentOf(MockHttpServletResponse response) {
+        try {
+            return response.getContentAsString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the events.");
+            Thread.sleep(20);
+        }
+    }
+}
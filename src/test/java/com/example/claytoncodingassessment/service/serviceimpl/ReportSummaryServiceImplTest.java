@@ -0,0 +1,168 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.ReportSummary;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.repository.ReportSummaryRepo;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import com.example.claytoncodingassessment.service.ReportSummaryService;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import com.example.claytoncodingassessment.service.TaskService;
+import com.example.claytoncodingassessment.service.TaskStepExecutionReportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+@SpringBootTest
+class ReportSummaryServiceImplTest {
+
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+    @Autowired
+    private ReportSummaryRepo reportSummaryRepo;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportService taskStepExecutionReportService;
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final LocalDateTime start = LocalDateTime.of(2023, 5, 9, 12, 0);
+
+    @Test
+    @DisplayName("StepReport writes keep the counts, status and slowest StepReport of the ReportSummary up to date.")
+    void projectsStepReportWrites() {
+
+        Task task = taskService.createTask(Task.builder().title("Summary Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(),
+                TaskExecutionReport.builder().build()).getValue();
+        ReportSummary reportSummary = reportSummaryRepo.findById(taskReport.getId()).get();
+        assertEquals("Summary Task", reportSummary.getTaskTitle());
+        assertEquals(task.getId(), reportSummary.getTaskId());
+        assertNull(reportSummary.getStatus());
+
+        TaskStepExecutionReport fast = createStep(task, taskReport, "fast", Status.SUCCESS, 3);
+        TaskStepExecutionReport slow = createStep(task, taskReport, "slow", Status.SUCCESS, 5);
+        createStep(task, taskReport, "running", Status.RUNNING, 0);
+
+        reportSummary = reportSummaryRepo.findById(taskReport.getId()).get();
+        assertEquals(Status.RUNNING, reportSummary.getStatus());
+        assertEquals(3, reportSummary.getStepCount());
+        assertEquals(2, reportSummary.getSuccessStepCount());
+        assertEquals(1, reportSummary.getRunningStepCount());
+        assertEquals(slow.getId(), reportSummary.getSlowestStepReportId());
+        assertEquals("slow", reportSummary.getSlowestStepName());
+        assertEquals(5_000_000L, reportSummary.getSlowestStepExecutionTimeMicros());
+
+        taskStepExecutionReportService.updateTaskStepExecutionReport(task.getId(), taskReport.getId(), slow.getId(),
+                TaskStepExecutionReport.builder().stepName("slow").status(Status.FAILURE).build());
+
+        reportSummary = reportSummaryRepo.findById(taskReport.getId()).get();
+        assertEquals(Status.FAILURE, reportSummary.getStatus());
+        assertEquals(1, reportSummary.getFailureStepCount());
+        assertEquals(fast.getId(), reportSummary.getSlowestStepReportId());     // The slowest one lost its time, so it is recomputed.
+        assertEquals(3_000_000L, reportSummary.getSlowestStepExecutionTimeMicros());
+
+        entityManager.flush();
+        entityManager.clear();      // Deletes run on a fresh persistence context, as they would in their own request.
+        taskStepExecutionReportService.deleteTaskStepExecutionReport(task.getId(), taskReport.getId(), fast.getId());
+
+        reportSummary = reportSummaryRepo.findById(taskReport.getId()).get();
+        assertEquals(2, reportSummary.getStepCount());
+        assertNull(reportSummary.getSlowestStepReportId());
+
+        taskExecutionReportService.deleteTaskExecutionReport(task.getId(), taskReport.getId());
+
+        assertTrue(reportSummaryRepo.findById(taskReport.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("The TaskReport lists are paged from the ReportSummaries, by status and by execution time.")
+    void listsReportSummaries() throws Exception {
+
+        TaskExecutionReport slower = completedTaskReport("Slower Task", 7);
+        TaskExecutionReport faster = completedTaskReport("Faster Task", 2);
+        Set<Long> ids = Set.of(slower.getId(), faster.getId());
+
+        List<Long> orderedByExeTime = reportSummaryService.getAllReportSummariesOrderedByExeTime(null, 1000).getItems().stream()
+                .map(ReportSummary::getTaskReportId)
+                .filter(ids::contains)
+                .toList();
+        assertEquals(List.of(faster.getId(), slower.getId()), orderedByExeTime);
+
+        assertEquals(2, reportSummaryService.getAllReportSummariesByStatus(Status.SUCCESS, null, 1000).getItems().stream()
+                .filter(s -> ids.contains(s.getTaskReportId()))
+                .count());
+        assertTrue(reportSummaryService.getAllReportSummariesByStatus(Status.RUNNING, null, 1000).getItems().stream()
+                .noneMatch(s -> ids.contains(s.getTaskReportId())));
+    }
+
+    @Test
+    @DisplayName("Rebuilding backfills the ReportSummary of a TaskReport written without the services.")
+    void rebuildsReportSummaries() {
+
+        Task task = taskRepo.save(Task.builder().title("Backfilled Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportRepo.save(TaskExecutionReport.builder()
+                .taskId(task)
+                .startDateTime(start)
+                .status(Status.SUCCESS)
+                .stepCount(2)
+                .successStepCount(2)
+                .build());
+        taskStepExecutionReportRepo.save(TaskStepExecutionReport.builder()
+                .taskExecutionId(taskReport).stepName("legacy").status(Status.SUCCESS).executionTimeSeconds(4L).build());
+        TaskStepExecutionReport slowest = taskStepExecutionReportRepo.save(TaskStepExecutionReport.builder()
+                .taskExecutionId(taskReport).stepName("precise").status(Status.SUCCESS).executionTimeSeconds(4L).executionTimeMicros(4_500_000L).build());
+        entityManager.flush();
+        assertTrue(reportSummaryRepo.findById(taskReport.getId()).isEmpty());
+
+        assertTrue(reportSummaryService.rebuildReportSummaries() >= 1);
+
+        ReportSummary reportSummary = reportSummaryRepo.findById(taskReport.getId()).get();
+        assertEquals("Backfilled Task", reportSummary.getTaskTitle());
+        assertEquals(Status.SUCCESS, reportSummary.getStatus());
+        assertEquals(2, reportSummary.getSuccessStepCount());
+        assertEquals(slowest.getId(), reportSummary.getSlowestStepReportId());
+        assertEquals(4_500_000L, reportSummary.getSlowestStepExecutionTimeMicros());
+    }
+
+    private TaskStepExecutionReport createStep(Task task, TaskExecutionReport taskReport, String stepName, Status status, long seconds) {
+        return taskStepExecutionReportService.createTaskStepExecutionReport(task.getId(), taskReport.getId(), TaskStepExecutionReport.builder()
+                .stepName(stepName)
+                .status(status)
+                .startDateTime(start)
+                .endDateTime(start.plusSeconds(seconds))
+                .build()).getValue();
+    }
+
+    private TaskExecutionReport completedTaskReport(String title, long seconds) {
+        Task task = taskService.createTask(Task.builder().title(title).build());
+        TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(),
+                TaskExecutionReport.builder().build()).getValue();
+        createStep(task, taskReport, "step", Status.SUCCESS, seconds);
+        return taskReport;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.LatencyWindow;
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.StepLatency;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.model.views.StepReportView;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Transactional
+@SpringBootTest
+class StepLatencySketchesTest {
+
+    @Autowired
+    private TaskRepo taskRepo;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MINUTES).plusSeconds(30);
+
+    @Test
+    @DisplayName("Percentiles only cover the StepReports that completed within the window.")
+    void percentilesPerWindow() {
+
+        StepLatencySketches stepLatencySketches = new StepLatencySketches();
+        for (long micros = 1; micros <= 100; micros++) {
+            stepLatencySketches.record("build", at(now.minus(5, ChronoUnit.MINUTES)), micros);
+        }
+        stepLatencySketches.record("build", at(now.minus(3, ChronoUnit.HOURS)), 1000L);
+        stepLatencySketches.record("deploy", at(now.minus(2, ChronoUnit.DAYS)), 7L);
+
+        StepLatency lastHour = stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("build"), now).get(0);
+        assertEquals(100, lastHour.getCount());
+        assertEquals(50, lastHour.getP50Micros());
+        assertEquals(95, lastHour.getP95Micros());
+        assertEquals(99, lastHour.getP99Micros());
+        assertEquals(100, lastHour.getMaxMicros());
+
+        StepLatency lastDay = stepLatencySketches.latencies(LatencyWindow.DAY, Optional.of("build"), now).get(0);
+        assertEquals(101, lastDay.getCount());
+        assertTrue(Math.abs(lastDay.getMaxMicros() - 1000) <= 10);        // Two significant digits.
+
+        assertEquals(List.of("build"), stepNames(stepLatencySketches.latencies(LatencyWindow.DAY, Optional.empty(), now)));
+        assertEquals(List.of("build", "deploy"), stepNames(stepLatencySketches.latencies(LatencyWindow.WEEK, Optional.empty(), now)));
+        assertTrue(stepLatencySketches.latencies(LatencyWindow.WEEK, Optional.of("missing"), now).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A bucket is reset once the ring comes round to it again.")
+    void reusesExpiredBuckets() {
+
+        StepLatencySketches stepLatencySketches = new StepLatencySketches();
+        stepLatencySketches.record("build", at(now.minus(60, ChronoUnit.MINUTES)), 10L);     // Same minute slot as now.
+        stepLatencySketches.record("build", at(now), 20L);
+        stepLatencySketches.record("build", at(now.minus(120, ChronoUnit.MINUTES)), 30L);    // Too old for the slot, so dropped.
+
+        StepLatency lastHour = stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("build"), now).get(0);
+        assertEquals(1, lastHour.getCount());
+        assertEquals(20, lastHour.getP50Micros());
+        assertEquals(3, stepLatencySketches.latencies(LatencyWindow.DAY, Optional.of("build"), now).get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("A completion dated in the future is bucketed now, so it does not make later completions of its slot look too old.")
+    void bucketsFutureCompletionsNow() {
+
+        StepLatencySketches stepLatencySketches = new StepLatencySketches();
+        stepLatencySketches.record("build", at(now.plus(60, ChronoUnit.MINUTES)), 10L, now);    // Same minute slot as now.
+        stepLatencySketches.record("build", at(now), 20L, now);
+
+        StepLatency lastHour = stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("build"), now).get(0);
+        assertEquals(2, lastHour.getCount());
+        assertEquals(20, lastHour.getMaxMicros());
+        assertEquals(2, stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("build"), now.plus(59, ChronoUnit.MINUTES)).get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("The histograms stay within latency.max-memory by dropping the step name recorded longest ago.")
+    void boundsMemory() {
+
+        StepLatencySketches stepLatencySketches = new StepLatencySketches();
+        ReflectionTestUtils.setField(stepLatencySketches, "maxMemory", DataSize.ofKilobytes(16));
+        for (int i = 0; i < 100; i++) {
+            stepLatencySketches.record("step " + i, at(now), 10L + i);
+            stepLatencySketches.record("step 0", at(now), 10L + i);      // Keeps step 0 the most recently recorded.
+        }
+
+        assertTrue(stepLatencySketches.footprintBytes() <= DataSize.ofKilobytes(16).toBytes());
+        assertEquals(101, stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("step 0"), now).get(0).getCount());
+        assertEquals(1, stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("step 99"), now).get(0).getCount());
+        assertTrue(stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("step 1"), now).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Committed StepReports that become SUCCESS are recorded once, other events are not.")
+    void recordsCompletedStepReports() {
+
+        StepLatencySketches stepLatencySketches = new StepLatencySketches();
+        StepReportView completed = StepReportView.builder().stepName("build").status(Status.SUCCESS)
+                .endDateTime(LocalDateTime.now()).executionTimeMicros(5L).build();
+        StepReportView running = StepReportView.builder().stepName("build").status(Status.RUNNING).build();
+
+        stepLatencySketches.onReportEvent(ReportEvent.ofStep(ReportEvent.Type.STEP_CREATED, 1L, completed));
+        stepLatencySketches.onReportEvent(ReportEvent.ofStepUpdate(1L, Status.SUCCESS, completed));      // A re-sent SUCCESS.
+        stepLatencySketches.onReportEvent(ReportEvent.ofStepUpdate(1L, Status.SUCCESS, running));
+        stepLatencySketches.onReportEvent(ReportEvent.ofStepUpdate(1L, Status.RUNNING, completed));
+        stepLatencySketches.onReportEvent(ReportEvent.ofStep(ReportEvent.Type.STEP_DELETED, 1L, completed));
+        stepLatencySketches.onReportEvent(ReportEvent.ofStatus(1L, Status.SUCCESS));
+
+        assertEquals(2, stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("build")).get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("Rebuilding reads the SUCCESS StepReports of the last week from the database, in seconds where they predate microseconds.")
+    void rebuildsFromDatabase() {
+
+        Task task = taskRepo.save(Task.builder().title("Latency Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportRepo.save(TaskExecutionReport.builder().taskId(task).build());
+        LocalDateTime endDateTime = LocalDateTime.now().minusHours(2);
+        taskStepExecutionReportRepo.saveAll(List.of(
+                stepReport(taskReport, Status.SUCCESS, endDateTime, 4L),
+                stepReport(taskReport, Status.SUCCESS, endDateTime.minusDays(8), 9L),
+                stepReport(taskReport, Status.FAILURE, endDateTime, 6L)));
+        StepLatencySketches stepLatencySketches = new StepLatencySketches();
+        ReflectionTestUtils.setField(stepLatencySketches, "taskStepExecutionReportRepo", taskStepExecutionReportRepo);
+        ReflectionTestUtils.setField(stepLatencySketches, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(stepLatencySketches, "entityManager", entityManager);
+
+        stepLatencySketches.rebuild();
+
+        StepLatency lastWeek = stepLatencySketches.latencies(LatencyWindow.WEEK, Optional.of("Rebuilt Step")).get(0);
+        assertEquals(1, lastWeek.getCount());
+        assertTrue(Math.abs(lastWeek.getP50Micros() - 4_000_000) <= 40_000);
+        assertTrue(stepLatencySketches.latencies(LatencyWindow.HOUR, Optional.of("Rebuilt Step")).isEmpty());
+    }
+
+    private static TaskStepExecutionReport stepReport(TaskExecutionReport taskReport, Status status, LocalDateTime endDateTime, Long seconds) {
+        return TaskStepExecutionReport.builder().taskExecutionId(taskReport).stepName("Rebuilt Step").status(status)
+                .startDateTime(endDateTime.minusSeconds(seconds)).endDateTime(endDateTime).executionTimeSeconds(seconds).build();
+    }
+
+    private static LocalDateTime at(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static List<String> stepNames(List<StepLatency> latencies) {
+        return latencies.stream().map(StepLatency::getStepName).toList();
+    }
+}
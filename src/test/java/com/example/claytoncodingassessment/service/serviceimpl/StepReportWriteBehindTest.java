@@ -0,0 +1,156 @@
+package com.example.claytoncodingassessment.service.serviceimpl;
+
+import com.example.claytoncodingassessment.model.QueuedStepReportWrite;
+import com.example.claytoncodingassessment.model.ServiceResult;
+import com.example.claytoncodingassessment.model.Status;
+import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
+import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
+import com.example.claytoncodingassessment.service.TaskService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs with the write-behind queue enabled, on its own database since the writer thread commits outside the test.
+ */
+@SpringBootTest(properties = {
+        "ingestion.write-behind.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:writeBehind"
+})
+class StepReportWriteBehindTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskExecutionReportService taskExecutionReportService;
+    @Autowired
+    private TaskStepExecutionReportServiceImpl taskStepExecutionReportServiceImpl;
+    @Autowired
+    private TaskExecutionReportRepo taskExecutionReportRepo;
+    @Autowired
+    private TaskStepExecutionReportRepo taskStepExecutionReportRepo;
+
+    @Test
+    @DisplayName("Queued creates and updates are accepted with their id and then written with the TaskReport aggregates.")
+    void writesQueuedStepReports() throws Exception {
+
+        Task task = taskService.createTask(Task.builder().title("Write Behind Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(),
+                TaskExecutionReport.builder().build()).getValue();
+
+        ServiceResult<TaskStepExecutionReport> created = taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(task.getId(), taskReport.getId(),
+                TaskStepExecutionReport.builder().stepName("Queued Step").status(Status.RUNNING).build());
+
+        assertEquals(ServiceResult.Outcome.ACCEPTED, created.getOutcome());
+        Long stepReportId = created.getValue().getId();
+        assertNotNull(stepReportId);
+        awaitTrue(() -> taskStepExecutionReportRepo.findById(stepReportId).isPresent());
+        assertEquals(stepReportId, created.getValue().getId());      // Writing it leaves the accepted StepReport alone.
+
+        ServiceResult<TaskStepExecutionReport> updated = taskStepExecutionReportServiceImpl.updateTaskStepExecutionReport(task.getId(), taskReport.getId(),
+                stepReportId, TaskStepExecutionReport.builder().stepName("Queued Step").status(Status.SUCCESS).build());
+
+        assertEquals(ServiceResult.Outcome.ACCEPTED, updated.getOutcome());
+        awaitTrue(() -> taskStepExecutionReportRepo.findById(stepReportId).get().getStatus() == Status.SUCCESS);
+        TaskExecutionReport writtenTaskReport = taskExecutionReportRepo.findById(taskReport.getId()).get();
+        assertEquals(1, writtenTaskReport.getStepCount());
+        assertEquals(1, writtenTaskReport.getSuccessStepCount());
+        assertEquals(0, writtenTaskReport.getRunningStepCount());
+        assertEquals(Status.SUCCESS, writtenTaskReport.getStatus());
+    }
+
+    @Test
+    @DisplayName("A write that fails is retried alone and dropped, and the other writes of its TaskReport are still written.")
+    void dropsOnlyTheFailingWrite() {
+
+        Task task = taskService.createTask(Task.builder().title("Write Behind Task").build());
+        TaskExecutionReport taskReport = taskExecutionReportService.createTaskExecutionReport(task.getId(),
+                TaskExecutionReport.builder().build()).getValue();
+        StepReportWriteBehind stepReportWriteBehind = new StepReportWriteBehind();
+        ReflectionTestUtils.setField(stepReportWriteBehind, "taskStepExecutionReportServiceImpl",
+                (ObjectFactory<TaskStepExecutionReportServiceImpl>) () -> taskStepExecutionReportServiceImpl);
+
+        ReflectionTestUtils.invokeMethod(stepReportWriteBehind, "writeBatch", List.of(
+                write(taskReport.getId(), "First Step"),
+                write(taskReport.getId(), "x".repeat(1000)),      // Longer than the stepName column.
+                write(taskReport.getId(), "Last Step")));
+
+        assertEquals(List.of("First Step", "Last Step"), taskStepExecutionReportRepo.findAll().stream()
+                .filter(t -> t.getTaskExecutionId().getId().equals(taskReport.getId()))
+                .map(TaskStepExecutionReport::getStepName)
+                .sorted()
+                .toList());
+        assertEquals(2, taskExecutionReportRepo.findById(taskReport.getId()).get().getStepCount());
+        assertEquals(1, stepReportWriteBehind.dropped());
+    }
+
+    @Test
+    @DisplayName("A full queue refuses writes after the offer timeout, and stopping drains what was queued.")
+    void backPressureAndDrainOnStop() throws Exception {
+
+        TaskStepExecutionReportServiceImpl writer = mock(TaskStepExecutionReportServiceImpl.class);
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            taken.countDown();
+            release.await();
+            return null;
+        }).when(writer).writeQueuedStepReports(eq(1L), anyList());
+        StepReportWriteBehind stepReportWriteBehind = new StepReportWriteBehind();
+        ReflectionTestUtils.setField(stepReportWriteBehind, "enabled", true);
+        ReflectionTestUtils.setField(stepReportWriteBehind, "capacity", 1);
+        ReflectionTestUtils.setField(stepReportWriteBehind, "batchSize", 10);
+        ReflectionTestUtils.setField(stepReportWriteBehind, "offerTimeout", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(stepReportWriteBehind, "taskStepExecutionReportServiceImpl", (ObjectFactory<TaskStepExecutionReportServiceImpl>) () -> writer);
+        stepReportWriteBehind.start();
+
+        assertTrue(stepReportWriteBehind.offer(write(1L)));
+        assertTrue(taken.await(10, TimeUnit.SECONDS));     // The writer now holds the first write.
+        assertTrue(stepReportWriteBehind.offer(write(2L)));
+        assertFalse(stepReportWriteBehind.offer(write(3L)));
+        assertEquals(1, stepReportWriteBehind.size());
+
+        release.countDown();
+        stepReportWriteBehind.stop();
+
+        assertEquals(0, stepReportWriteBehind.size());
+        verify(writer).writeQueuedStepReports(eq(2L), anyList());
+        assertFalse(stepReportWriteBehind.offer(write(4L)));
+    }
+
+    private static QueuedStepReportWrite write(Long taskReportId) {
+        return write(taskReportId, "Queued Step");
+    }
+
+    private static QueuedStepReportWrite write(Long taskReportId, String stepName) {
+        return new QueuedStepReportWrite(taskReportId, TaskStepExecutionReport.builder().stepName(stepName).status(Status.RUNNING).build(), false);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for the queued write.");
+            Thread.sleep(20);
+        }
+    }
+}
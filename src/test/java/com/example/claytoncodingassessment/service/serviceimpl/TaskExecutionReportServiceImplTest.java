@@ -1,27 +1,31 @@
 package com.example.claytoncodingassessment.service.serviceimpl;
 
+import com.example.claytoncodingassessment.model.AggregateConsistencyReport;
+import com.example.claytoncodingassessment.model.ServiceResult;
 import com.example.claytoncodingassessment.model.Status;
 import com.example.claytoncodingassessment.model.entities.Task;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
 import com.example.claytoncodingassessment.repository.TaskExecutionReportRepo;
+import com.example.claytoncodingassessment.service.TaskExecutionReportService;
 import com.example.claytoncodingassessment.service.TaskService;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Transactional
@@ -34,6 +38,12 @@ class TaskExecutionReportServiceImplTest {
     @Mock
     private TaskService taskServiceMock;
 
+    @Mock
+    private TaskExecutionReportService taskExecutionReportServiceMock;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisherMock;
+
     @InjectMocks
     private TaskExecutionReportServiceImpl taskExecutionReportServiceimpl;
 
@@ -51,67 +61,49 @@ class TaskExecutionReportServiceImplTest {
         when(taskExecutionReportRepoMock.save(taskExecutionReportToSave)).thenReturn(taskExecutionReportToSave);
 
         TaskExecutionReport taskExecutionReportActual = taskExecutionReportServiceimpl.
-                createTaskExecutionReport(1L ,taskExecutionReportToSave);
+                createTaskExecutionReport(1L ,taskExecutionReportToSave).getValue();
 
         assertThat(taskExecutionReportActual).usingRecursiveComparison().isEqualTo(taskExecutionReportToSave);
 
     }
 
     @Test
-    @DisplayName("Testing all TaskReports are returned.")
-    void getAllTaskExecutionReports() {
+    @DisplayName("Testing specific TaskReport is returned.")
+    void getTaskExecutionReport() throws Exception {
 
-        List<TaskExecutionReport> taskReportArrayList = new ArrayList<>();
-        for (int i = 0; i < 4; i++) {
-            TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
-                    .taskId(
-                            Task.builder()
-                                    .id(i + 1L)
-                                    .title("Mandatory Task")
-                                    .build()
-                    ).id(i + 1L).build();
-            taskReportArrayList.add(taskExecutionReport);
-        }
+        TaskExecutionReport taskExecutionReportToReturn = TaskExecutionReport.builder()
+                .taskId(Task.builder().id(1L).title("test Task").build())
+                .errorMessage("This is a test.").build();
 
-        when(taskExecutionReportRepoMock.findAll()).thenReturn(taskReportArrayList);
+        when(taskExecutionReportServiceMock.findTaskReportById(1L)).thenReturn(Optional.of(taskExecutionReportToReturn));
 
-        List<TaskExecutionReport> TaskExecutionReportList = taskExecutionReportServiceimpl.
-                getAllTaskExecutionReports();
+        TaskExecutionReport taskExecutionReportActual = taskExecutionReportServiceimpl.
+                getTaskExecutionReport(1L, 1L).getValue();
 
-        assertEquals(4, TaskExecutionReportList.size());
+        assertThat(taskExecutionReportActual).usingRecursiveComparison().isEqualTo(taskExecutionReportToReturn);
     }
 
     @Test
-    @DisplayName("Testing specific TaskReport is returned.")
-    void getTaskExecutionReport() throws Exception {
+    @DisplayName("Testing a TaskReport of another Task is not returned.")
+    void getTaskExecutionReportNotFound() {
 
-        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder()
-                .title("test Task")
-                .taskExecutionReport(TaskExecutionReport.builder()
-                        .id(1L)
-                        .build())
+        when(taskExecutionReportServiceMock.findTaskReportById(1L)).thenReturn(Optional.of(TaskExecutionReport.builder()
+                .taskId(Task.builder().id(2L).title("other Task").build())
                 .build()));
+        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder().id(1L).title("test Task").build()));
 
-        TaskExecutionReport taskExecutionReportToReturn = TaskExecutionReport.builder()
-                .errorMessage("This is a test.").build();
-
-        when(taskExecutionReportRepoMock.findById(1L)).thenReturn(Optional.ofNullable(taskExecutionReportToReturn));
-
-        TaskExecutionReport taskExecutionReportActual = taskExecutionReportServiceimpl.
-                getTaskExecutionReport(1L, 1L);
+        ServiceResult<TaskExecutionReport> result = taskExecutionReportServiceimpl.getTaskExecutionReport(1L, 1L);
 
-        assertThat(taskExecutionReportActual).usingRecursiveComparison().isEqualTo(taskExecutionReportToReturn);
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, result.getOutcome());
+        assertEquals("Non-existent taskReportId passed for Task with id 1", result.getMessage());
     }
 
     @Test
     @DisplayName("Testing TaskReport is updated.")
     void updateTaskExecutionReport() throws Exception {
 
-        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder()
-                .title("test Task")
-                .taskExecutionReport(TaskExecutionReport.builder()
-                        .id(1L)
-                        .build())
+        when(taskExecutionReportRepoMock.findOwnedTaskReportForUpdate(1L, 1L)).thenReturn(Optional.of(TaskExecutionReport.builder()
+                .id(1L)
                 .build()));
 
         TaskExecutionReport taskExecutionReportToSave = TaskExecutionReport.builder()
@@ -120,13 +112,13 @@ class TaskExecutionReportServiceImplTest {
         when(taskExecutionReportRepoMock.save(any())).thenReturn(taskExecutionReportToSave);
 
         TaskExecutionReport taskExecutionReportActual = taskExecutionReportServiceimpl.
-                updateTaskExecutionReport(1L, 1L, taskExecutionReportToSave);
+                updateTaskExecutionReport(1L, 1L, taskExecutionReportToSave).getValue();
 
         assertThat(taskExecutionReportActual).usingRecursiveComparison().isEqualTo(taskExecutionReportToSave);
     }
 
     @Test
-    @DisplayName("Testing delete method throws correct exception.")
+    @DisplayName("Testing delete method reports the correct outcome.")
     void deleteTaskExecutionReport() {
         TaskExecutionReport taskExecutionReportToBeDeleted = TaskExecutionReport.builder()
                         .id(10L).build();
@@ -136,16 +128,30 @@ class TaskExecutionReportServiceImplTest {
                 .taskExecutionReport(taskExecutionReportToBeDeleted)
                 .build()));
 
-        assertThrows(NoSuchTaskReportException.class, () -> taskExecutionReportServiceimpl.
-                deleteTaskExecutionReport(10L, 9L));
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, taskExecutionReportServiceimpl.
+                deleteTaskExecutionReport(10L, 9L).getOutcome());
+    }
+
+    @Test
+    @DisplayName("Testing a missing Task is told apart from a foreign TaskReport.")
+    void resolveTaskReportTaskNotFound() {
+
+        when(taskServiceMock.findTaskById(any())).thenReturn(Optional.empty());
+
+        ServiceResult<TaskExecutionReport> result = taskExecutionReportServiceimpl.resolveTaskReport(1L, 1L);
+
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, result.getOutcome());
+        assertEquals("Non-existent taskId passed.", result.getMessage());
     }
 
     @Test
     @DisplayName("Testing that a TaskReports attributes get updated when a stepReport's status is SUCCESS")
     void updateAttributes() {
 
+        LocalDateTime endDateTime = LocalDateTime.of(2023, 5, 9, 12, 0);
         TaskStepExecutionReport taskStepExecutionReportSUCCESS = TaskStepExecutionReport.builder()
                 .executionTimeSeconds(100L)
+                .endDateTime(endDateTime)
                 .status(Status.SUCCESS)
                 .build();
 
@@ -156,73 +162,126 @@ class TaskExecutionReportServiceImplTest {
         taskExecutionReportServiceimpl.updateAttributes(taskExecutionReportToPass);
 
         assertThat(taskExecutionReportToPass.getStatus()).isEqualTo(Status.SUCCESS);
-        assertNotNull(taskExecutionReportToPass.getEndDateTime());
+        assertEquals(endDateTime, taskExecutionReportToPass.getEndDateTime());
         assertThat(taskExecutionReportToPass.getExecutionTimeSeconds()).isEqualTo(100L);
     }
 
     @Test
-    @DisplayName("Testing all TaskReports with given status are returned.")
-    void getAllTaskExecutionReportsByStatus() {
-
-        List<TaskExecutionReport> taskReportArrayList = new ArrayList<>();
-        for (int i = 0; i < 3; i++) {
-            TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
-                    .taskId(
-                            Task.builder()
-                                    .id(i + 1L)
-                                    .title("Mandatory Task")
-                                    .build()
-                    ).status(Status.SUCCESS)
-                    .id(i + 1L).build();
-            taskReportArrayList.add(taskExecutionReport);
-        }
-        for (int i = 3; i < 5; i++) {
-            TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
-                    .taskId(
-                            Task.builder()
-                                    .id(i + 1L)
-                                    .title("Mandatory Task")
-                                    .build()
-                    ).status(Status.FAILURE)
-                    .id(i + 1L).build();
-            taskReportArrayList.add(taskExecutionReport);
-        }
+    @DisplayName("Testing step deltas keep the TaskReport aggregates, status and time in sync.")
+    void applyStepDelta() {
 
-        when(taskExecutionReportRepoMock.findAll()).thenReturn(taskReportArrayList);
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder().build();
 
-        assertEquals(3, taskExecutionReportServiceimpl.
-                getAllTaskExecutionReportsByStatus(Status.SUCCESS).size());
-        assertEquals(2, taskExecutionReportServiceimpl.
-                getAllTaskExecutionReportsByStatus(Status.FAILURE).size());
-        assertEquals(0, taskExecutionReportServiceimpl.
-                getAllTaskExecutionReportsByStatus(Status.RUNNING).size());
+        TaskStepExecutionReport runningStep = TaskStepExecutionReport.builder()
+                .status(Status.RUNNING)
+                .build();
+        TaskStepExecutionReport successStep = TaskStepExecutionReport.builder()
+                .executionTimeSeconds(10L)
+                .status(Status.SUCCESS)
+                .build();
+
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, null, runningStep);
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, null, successStep);
+
+        assertThat(taskExecutionReport.getStatus()).isEqualTo(Status.RUNNING);
+        assertEquals(2, taskExecutionReport.getStepCount());
+        assertNull(taskExecutionReport.getExecutionTimeSeconds());
+
+        TaskStepExecutionReport finishedStep = TaskStepExecutionReport.builder()
+                .executionTimeSeconds(20L)
+                .status(Status.SUCCESS)
+                .build();
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, runningStep, finishedStep);
+
+        assertThat(taskExecutionReport.getStatus()).isEqualTo(Status.SUCCESS);
+        assertEquals(0, taskExecutionReport.getRunningStepCount());
+        assertEquals(2, taskExecutionReport.getSuccessStepCount());
+        assertThat(taskExecutionReport.getExecutionTimeSeconds()).isEqualTo(30L);
+
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, successStep, null);
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, finishedStep, null);
+
+        assertNull(taskExecutionReport.getStatus());
+        assertEquals(0, taskExecutionReport.getStepCount());
+        assertEquals(0, taskExecutionReport.getStepExecutionTimeSeconds());
     }
 
     @Test
-    @DisplayName("Testing TaskReports are returned ordered by ExecutionTime.")
-    void getAllTaskExecutionReportsOrderedByExeTime() {
-
-        List<TaskExecutionReport> taskReportArrayList = new ArrayList<>();
-        for (int i = 0; i < 5; i++) {
-            TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
-                    .taskId(
-                            Task.builder()
-                                    .id(i + 1L)
-                                    .title("Mandatory Task")
-                                    .build()
-                    ).executionTimeSeconds(i * 10L)
-                    .id(i + 1L).build();
-            taskReportArrayList.add(taskExecutionReport);
+    @DisplayName("Testing sub-second StepReports add up in microseconds rather than as whole seconds.")
+    void applyStepDeltaSubSecond() {
+
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder().build();
+        for (int i = 0; i < 4; i++) {
+            taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, null, TaskStepExecutionReport.builder()
+                    .executionTimeSeconds(0L)
+                    .executionTimeMicros(400_000L)
+                    .status(Status.SUCCESS)
+                    .build());
         }
 
-        when(taskExecutionReportRepoMock.findAll()).thenReturn(taskReportArrayList);
+        assertEquals(0, taskExecutionReport.getStepExecutionTimeSeconds());
+        assertEquals(1_600_000, taskExecutionReport.getStepExecutionTimeMicros());
+        assertThat(taskExecutionReport.getExecutionTimeMicros()).isEqualTo(1_600_000L);
+        assertThat(taskExecutionReport.getExecutionTimeSeconds()).isEqualTo(1L);
+    }
 
-        taskExecutionReportServiceimpl.getAllTaskExecutionReportsOrderedByExeTime();
+    @Test
+    @DisplayName("Testing a SUCCESS TaskReport ends when its last StepReport ended, not when the last write arrived.")
+    void applyStepDeltaEndDateTime() {
 
-        for (int i = 0; i < taskReportArrayList.size() - 1; i++) {
-            assertTrue(taskReportArrayList.get(i).getExecutionTimeSeconds()
-                    < taskReportArrayList.get(i + 1).getExecutionTimeSeconds());
-        }
+        LocalDateTime start = LocalDateTime.of(2023, 5, 9, 12, 0);
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder().id(1L).build();
+        TaskStepExecutionReport lateStep = TaskStepExecutionReport.builder()
+                .status(Status.SUCCESS).startDateTime(start).endDateTime(start.plusMinutes(5)).build();
+        TaskStepExecutionReport earlyStep = TaskStepExecutionReport.builder()
+                .status(Status.SUCCESS).startDateTime(start).endDateTime(start.plusMinutes(1)).build();
+
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, null, lateStep);
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, null, earlyStep);     // Flushed after the later step.
+
+        assertThat(taskExecutionReport.getStatus()).isEqualTo(Status.SUCCESS);
+        assertEquals(start.plusMinutes(5), taskExecutionReport.getEndDateTime());
+        verify(taskExecutionReportRepoMock, never()).findLatestStepEndDateTime(any());
+
+        when(taskExecutionReportRepoMock.findLatestStepEndDateTime(1L)).thenReturn(start.plusMinutes(1));
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, lateStep, null);
+
+        assertEquals(start.plusMinutes(1), taskExecutionReport.getEndDateTime());
+
+        taskExecutionReportServiceimpl.applyStepDelta(taskExecutionReport, null, TaskStepExecutionReport.builder().status(Status.RUNNING).build());
+
+        assertNull(taskExecutionReport.getEndDateTime());
+        assertEquals(start.plusMinutes(1), taskExecutionReport.getLatestStepEndDateTime());
+    }
+
+    @Test
+    @DisplayName("Testing the consistency check finds and repairs drifted aggregates.")
+    void checkAggregateConsistency() throws Exception {
+
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
+                .id(1L)
+                .stepCount(5L)
+                .taskStepExecutionReports(Set.of(TaskStepExecutionReport.builder()
+                        .executionTimeSeconds(100L)
+                        .status(Status.SUCCESS)
+                        .build()))
+                .build();
+
+        when(taskExecutionReportRepoMock.findById(1L)).thenReturn(Optional.of(taskExecutionReport));
+        when(taskExecutionReportRepoMock.findForUpdateById(1L)).thenReturn(Optional.of(taskExecutionReport));
+
+        AggregateConsistencyReport check = taskExecutionReportServiceimpl.checkAggregateConsistency(1L, false).getValue();
+
+        assertFalse(check.isConsistent());
+        assertFalse(check.isRepaired());
+        assertEquals(5L, taskExecutionReport.getStepCount());
+
+        AggregateConsistencyReport repair = taskExecutionReportServiceimpl.checkAggregateConsistency(1L, true).getValue();
+
+        assertTrue(repair.isRepaired());
+        assertEquals(1L, taskExecutionReport.getStepCount());
+        assertThat(taskExecutionReport.getExecutionTimeSeconds()).isEqualTo(100L);
+        assertTrue(taskExecutionReportServiceimpl.checkAggregateConsistency(1L, false).getValue().isConsistent());
     }
 
 }
\ No newline at end of file
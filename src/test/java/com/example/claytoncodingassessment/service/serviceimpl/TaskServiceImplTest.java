@@ -1,6 +1,8 @@
 package com.example.claytoncodingassessment.service.serviceimpl;
 
+import com.example.claytoncodingassessment.model.CursorPage;
 import com.example.claytoncodingassessment.model.entities.Task;
+import com.example.claytoncodingassessment.service.exceptions.InvalidCursorException;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,8 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 @Transactional
 @SpringBootTest
@@ -36,8 +37,30 @@ class TaskServiceImplTest {
 
     @Test
     @DisplayName("Testing all tasks are returned.")
-    void getAllTasks() {
+    void getAllTasks() throws Exception {
         taskServiceImpl.createTask(Task.builder().title("Task1").build());
-        assertEquals(1, taskServiceImpl.getAllTasks().size() );
+        assertEquals(1, taskServiceImpl.getAllTasks(null, CursorPage.DEFAULT_LIMIT).getItems().size() );
+    }
+
+    @Test
+    @DisplayName("Testing tasks are paged with a cursor.")
+    void getAllTasksPaged() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            taskServiceImpl.createTask(Task.builder().title("Task" + i).build());
+        }
+        CursorPage<Task> firstPage = taskServiceImpl.getAllTasks(null, 3);
+        assertEquals(3, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        CursorPage<Task> secondPage = taskServiceImpl.getAllTasks(firstPage.getNextCursor(), 3);
+        assertEquals(2, secondPage.getItems().size());
+        assertNull(secondPage.getNextCursor());
+        assertTrue(secondPage.getItems().get(0).getId() > firstPage.getItems().get(2).getId());
+    }
+
+    @Test
+    @DisplayName("Test an invalid cursor is rejected")
+    void getAllTasksInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> taskServiceImpl.getAllTasks("not a cursor", 3));
     }
 }
\ No newline at end of file
@@ -1,27 +1,39 @@
 package com.example.claytoncodingassessment.service.serviceimpl;
 
+import com.example.claytoncodingassessment.model.ReportEvent;
+import com.example.claytoncodingassessment.model.ServiceResult;
 import com.example.claytoncodingassessment.model.Status;
 import com.example.claytoncodingassessment.model.entities.Task;
 import com.example.claytoncodingassessment.model.entities.TaskExecutionReport;
 import com.example.claytoncodingassessment.model.entities.TaskStepExecutionReport;
+import com.example.claytoncodingassessment.model.views.StepReportView;
 import com.example.claytoncodingassessment.repository.TaskStepExecutionReportRepo;
 import com.example.claytoncodingassessment.service.TaskExecutionReportService;
-import com.example.claytoncodingassessment.service.TaskService;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskException;
-import com.example.claytoncodingassessment.service.exceptions.NoSuchTaskReportException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Transactional
@@ -33,9 +45,15 @@ class TaskStepExecutionReportServiceImplTest {
     @Mock
     private TaskExecutionReportService taskExecutionReportService;
     @Mock
-    private TaskService taskServiceMock;
-    @Mock
     private TaskExecutionReportServiceImpl taskExecutionReportServiceImpl;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private StepReportWriteBehind stepReportWriteBehind;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
     @InjectMocks
     private TaskStepExecutionReportServiceImpl taskStepExecutionReportServiceImpl;
 
@@ -43,30 +61,90 @@ class TaskStepExecutionReportServiceImplTest {
     @DisplayName("Creating a single StepReport.")
     void createTaskStepExecutionReport() throws Exception {
 
-        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder()
-                .title("test Task")
-                .taskExecutionReport(TaskExecutionReport.builder()
-                        .id(1L)
-                        .build())
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(TaskExecutionReport.builder()
+                .id(1L)
                 .build()));
 
         TaskStepExecutionReport taskStepExecutionReportToSave = TaskStepExecutionReport.builder()
                         .stepName("Test Step").status(Status.RUNNING).errorMessage("Test Error Message").build();
 
-        when(taskExecutionReportService.findTaskReportById(any())).thenReturn(
-                Optional.of(TaskExecutionReport.builder().build()));
-
         when(taskStepExecutionReportRepo.save(taskStepExecutionReportToSave)).thenReturn(taskStepExecutionReportToSave);
 
-        TaskStepExecutionReport taskStepExecutionReportActual = taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(
                 1L, 1L, taskStepExecutionReportToSave);
 
-        assertThat(taskStepExecutionReportActual).usingRecursiveComparison().isEqualTo(taskStepExecutionReportToSave);
+        assertEquals(ServiceResult.Outcome.CREATED, result.getOutcome());
+        assertThat(result.getValue()).usingRecursiveComparison().isEqualTo(taskStepExecutionReportToSave);
+        verify(eventPublisher).publishEvent(ReportEvent.ofStep(ReportEvent.Type.STEP_CREATED, 1L, StepReportView.of(taskStepExecutionReportToSave)));
+    }
+
+    @Test
+    @DisplayName("An id passed in a create body is dropped, so the create can never write over an existing StepReport.")
+    void createTaskStepExecutionReportIgnoresBodyId() throws Exception {
+
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder().id(1L).build();
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(taskExecutionReport));
+
+        TaskStepExecutionReport taskStepExecutionReportToSave = TaskStepExecutionReport.builder()
+                .id(7L).stepName("Test Step").status(Status.RUNNING).build();
+        when(taskStepExecutionReportRepo.save(taskStepExecutionReportToSave)).thenReturn(taskStepExecutionReportToSave);
+        taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(1L, 1L, taskStepExecutionReportToSave);
+        assertNull(taskStepExecutionReportToSave.getId());
+
+        List<TaskStepExecutionReport> stepReportsToSave = List.of(TaskStepExecutionReport.builder()
+                .id(7L).stepName("Test Step").status(Status.RUNNING).build());
+        when(taskStepExecutionReportRepo.saveAll(stepReportsToSave)).thenReturn(stepReportsToSave);
+        taskStepExecutionReportServiceImpl.createTaskStepExecutionReports(1L, 1L, stepReportsToSave);
+        assertNull(stepReportsToSave.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Creating a batch of StepReports recomputes the TaskReport once.")
+    void createTaskStepExecutionReports() throws Exception {
+
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
+                .id(1L)
+                .build();
+
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(taskExecutionReport));
+
+        List<TaskStepExecutionReport> stepReportsToSave = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            stepReportsToSave.add(TaskStepExecutionReport.builder()
+                    .stepName("Test Step " + i).status(Status.SUCCESS).build());
+        }
+
+        when(taskStepExecutionReportRepo.saveAll(stepReportsToSave)).thenReturn(stepReportsToSave);
+
+        List<TaskStepExecutionReport> createdStepReports = taskStepExecutionReportServiceImpl.createTaskStepExecutionReports(
+                1L, 1L, stepReportsToSave).getValue();
+
+        assertEquals(3, createdStepReports.size());
+        for (TaskStepExecutionReport t : createdStepReports) {
+            assertSame(taskExecutionReport, t.getTaskExecutionId());
+            assertNotNull(t.getExecutionTimeSeconds());
+        }
+        verify(taskStepExecutionReportRepo, times(1)).saveAll(stepReportsToSave);
+        verify(taskExecutionReportServiceImpl, times(1)).applyStepDeltas(taskExecutionReport, stepReportsToSave);
+    }
+
+    @Test
+    @DisplayName("Creating a batch of StepReports for another Task's report is not found.")
+    void createTaskStepExecutionReportsNotFound() {
+
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(
+                ServiceResult.notFound("Non-existent taskReportId passed for Task with id 1"));
+
+        ServiceResult<List<TaskStepExecutionReport>> result = taskStepExecutionReportServiceImpl.createTaskStepExecutionReports(
+                1L, 1L, List.of(TaskStepExecutionReport.builder().status(Status.RUNNING).build()));
+
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, result.getOutcome());
+        verify(taskStepExecutionReportRepo, never()).saveAll(any());
     }
 
     @Test
     @DisplayName("Testing all StepReports are returned.")
-    void getAllTaskStepExecutionReports() {
+    void getAllTaskStepExecutionReports() throws Exception {
 
         TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
                 .taskId(
@@ -85,53 +163,41 @@ class TaskStepExecutionReportServiceImplTest {
             stepReportArrayList.add(taskStepExecutionReport);
         }
 
-        when(taskStepExecutionReportRepo.findAll()).thenReturn(stepReportArrayList);
+        when(taskStepExecutionReportRepo.findAllByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(stepReportArrayList);
 
         List<TaskStepExecutionReport> StepExecutionReportList = taskStepExecutionReportServiceImpl.
-                getAllTaskStepExecutionReports();
+                getAllTaskStepExecutionReports(null, 10).getItems();
 
         assertEquals(4, StepExecutionReportList.size());
     }
 
-                // ToDo check why this doesn't work
     @Test
     @DisplayName("Testing specific StepReport is returned.")
     void getTaskStepExecutionReport() throws Exception {
 
-        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder()
-                .taskId(
-                        Task.builder()
-                                .id(1L)
-                                .title("Mandatory Task")
-                                .build()
-                ).id(1L).build();
+        TaskStepExecutionReport taskStepExecutionReport = TaskStepExecutionReport.builder()
+                .taskExecutionId(TaskExecutionReport.builder().id(1L).build())
+                .id(3L).build();
 
-        Set<TaskStepExecutionReport> stepReportSet = new HashSet<>();
+        when(taskStepExecutionReportRepo.findOwnedStepReport(1L, 1L, 3L)).thenReturn(Optional.of(taskStepExecutionReport));
 
-        for (int i = 0; i < 4; i++) {
-            TaskStepExecutionReport taskStepExecutionReport = TaskStepExecutionReport.builder()
-                    .taskExecutionId(taskExecutionReport)
-                    .id(i + 1L).build();
-            stepReportSet.add(taskStepExecutionReport);
-        }
-
-        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder()
-                .title("test Task")
-                .taskExecutionReport(TaskExecutionReport.builder()
-                        .id(1L)
-                        .taskStepExecutionReports(stepReportSet)
-                        .build())
-                .build()));
+        TaskStepExecutionReport taskStepExecutionReportActual = taskStepExecutionReportServiceImpl.
+                getTaskStepExecutionReport(1L, 1L, 3L).getValue();
 
-        List<TaskStepExecutionReport> setToList = new ArrayList<>(stepReportSet);
+        assertThat(taskStepExecutionReportActual).usingRecursiveComparison().isEqualTo(taskStepExecutionReport);
+        verify(taskExecutionReportServiceImpl, never()).resolveTaskReport(any(), any());
+    }
 
-        List<TaskStepExecutionReport> taskSteplist =  setToList.stream().filter(t -> t.getId() == 3L).toList();
+    @Test
+    @DisplayName("Testing a StepReport outside the TaskReport is not found.")
+    void getTaskStepExecutionReportNotFound() {
 
-        TaskStepExecutionReport taskStepExecutionReportActual = taskStepExecutionReportServiceImpl.
-                getTaskStepExecutionReport(1L, 1L, 3L);
+        when(taskExecutionReportServiceImpl.resolveTaskReport(1L, 1L)).thenReturn(ServiceResult.ok(TaskExecutionReport.builder().id(1L).build()));
 
-        assertThat(taskStepExecutionReportActual).usingRecursiveComparison().isEqualTo(taskSteplist.get(0));
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.getTaskStepExecutionReport(1L, 1L, 3L);
 
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, result.getOutcome());
+        assertEquals("Non-existent stepReportId passed for TaskReport with id 1", result.getMessage());
     }
 
     @Test
@@ -140,43 +206,138 @@ class TaskStepExecutionReportServiceImplTest {
 
         TaskExecutionReport taskExecutionReportRequired = TaskExecutionReport.builder()
                 .id(1L)
-                .taskStepExecutionReports(Set.of(TaskStepExecutionReport.builder()
-                        .id(1L).status(Status.RUNNING).build()))
                 .build();
 
-        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder()
-                .title("test Task")
-                .taskExecutionReport(taskExecutionReportRequired)
-                .build()));
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(taskExecutionReportRequired));
+        when(taskStepExecutionReportRepo.findOwnedStepReport(1L, 1L, 1L)).thenReturn(Optional.of(TaskStepExecutionReport.builder()
+                .id(1L).status(Status.RUNNING).taskExecutionId(taskExecutionReportRequired).build()));
 
         TaskStepExecutionReport taskStepExecutionReportToSave = TaskStepExecutionReport.builder()
                 .id(1L).status(Status.FAILURE).build();
 
-        when(taskExecutionReportService.findTaskReportById(any())).thenReturn(Optional.of(taskExecutionReportRequired));
-
         when(taskStepExecutionReportRepo.save(any())).thenReturn(taskStepExecutionReportToSave);
 
         TaskStepExecutionReport taskStepExecutionReportActual = taskStepExecutionReportServiceImpl.
-                updateTaskStepExecutionReport(1L, 1L, 1L, taskStepExecutionReportToSave);
+                updateTaskStepExecutionReport(1L, 1L, 1L, taskStepExecutionReportToSave).getValue();
 
         assertThat(taskStepExecutionReportActual).usingRecursiveComparison().isEqualTo(taskStepExecutionReportToSave);
     }
 
     @Test
-    @DisplayName("Test the delete method throws NoSuchTaskException")
-    void deleteTaskStepExecutionReportThrowsNoSuchTaskException() {
-        assertThrows(NoSuchTaskException.class, ()->taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(1L, 1L, 1L));
+    @DisplayName("An update whose sequenceNumber is not after the stored one is ignored.")
+    void updateTaskStepExecutionReportOutOfOrder() throws Exception {
+
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder().id(1L).build();
+        TaskStepExecutionReport stored = TaskStepExecutionReport.builder()
+                .id(1L).status(Status.SUCCESS).sequenceNumber(5L)
+                .taskExecutionId(taskExecutionReport).build();
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(taskExecutionReport));
+        when(taskStepExecutionReportRepo.findOwnedStepReport(1L, 1L, 1L)).thenReturn(Optional.of(stored));
+
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.updateTaskStepExecutionReport(1L, 1L, 1L,
+                TaskStepExecutionReport.builder().status(Status.RUNNING).sequenceNumber(4L).build());
+
+        assertEquals(ServiceResult.Outcome.IGNORED, result.getOutcome());
+        assertSame(stored, result.getValue());
+        assertEquals(Status.SUCCESS, stored.getStatus());
+        verify(taskExecutionReportServiceImpl).resolveTaskReportForUpdate(1L, 1L);
+        verify(taskStepExecutionReportRepo, never()).save(any());
+        verify(taskExecutionReportServiceImpl, never()).applyStepDelta(any(), any(), any());
     }
 
     @Test
-    @DisplayName("Test the delete method throws NoSuchTaskException")
-    void deleteTaskStepExecutionReportThrowsNoSuchTaskReportException() {
+    @DisplayName("Client start and end timestamps are kept and give the duration.")
+    void createTaskStepExecutionReportWithClientTimestamps() throws Exception {
 
-        when(taskServiceMock.findTaskById(1L)).thenReturn(Optional.of(Task.builder()
-                .title("test Task")
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(TaskExecutionReport.builder()
+                .id(1L)
                 .build()));
+        LocalDateTime startDateTime = LocalDateTime.of(2023, 5, 9, 23, 55, 33, 100_000_000);
+        TaskStepExecutionReport taskStepExecutionReportToSave = TaskStepExecutionReport.builder()
+                .stepName("Flushed Step").status(Status.SUCCESS).sequenceNumber(1L)
+                .startDateTime(startDateTime).endDateTime(startDateTime.plusNanos(1_250_000)).build();
+        when(taskStepExecutionReportRepo.save(taskStepExecutionReportToSave)).thenReturn(taskStepExecutionReportToSave);
+
+        taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(1L, 1L, taskStepExecutionReportToSave);
+
+        assertEquals(startDateTime, taskStepExecutionReportToSave.getStartDateTime());
+        assertEquals(startDateTime.plusNanos(1_250_000), taskStepExecutionReportToSave.getEndDateTime());
+        assertEquals(1250L, taskStepExecutionReportToSave.getExecutionTimeMicros());
+    }
+
+    @Test
+    @DisplayName("A client endDateTime before the startDateTime is rejected rather than stored as a duration of 0.")
+    void createTaskStepExecutionReportEndBeforeStart() throws Exception {
+
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(TaskExecutionReport.builder()
+                .id(1L)
+                .build()));
+        LocalDateTime startDateTime = LocalDateTime.of(2023, 5, 9, 23, 55, 33);
+
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.createTaskStepExecutionReport(1L, 1L,
+                TaskStepExecutionReport.builder().stepName("Flushed Step").status(Status.SUCCESS)
+                        .startDateTime(startDateTime).endDateTime(startDateTime.minusSeconds(1)).build());
+        ServiceResult<List<TaskStepExecutionReport>> batchResult = taskStepExecutionReportServiceImpl.createTaskStepExecutionReports(1L, 1L, List.of(
+                TaskStepExecutionReport.builder().stepName("Good Step").status(Status.RUNNING).build(),
+                TaskStepExecutionReport.builder().stepName("Flushed Step").status(Status.SUCCESS)
+                        .startDateTime(startDateTime).endDateTime(startDateTime.minusSeconds(1)).build()));
+
+        assertEquals(ServiceResult.Outcome.INVALID, result.getOutcome());
+        assertEquals("endDateTime 2023-05-09T23:55:32 is before startDateTime 2023-05-09T23:55:33.", result.getMessage());
+        assertEquals(ServiceResult.Outcome.INVALID, batchResult.getOutcome());
+        assertTrue(batchResult.getMessage().startsWith("StepReport 1 of the batch: "));
+        verify(taskStepExecutionReportRepo, never()).save(any());
+        verify(taskStepExecutionReportRepo, never()).saveAll(any());
+        verify(taskExecutionReportServiceImpl, never()).applyStepDelta(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("A client timestamp past the allowed clock skew is rejected, on update against the stored startDateTime.")
+    void updateTaskStepExecutionReportFutureEnd() throws Exception {
+
+        TaskExecutionReport taskExecutionReport = TaskExecutionReport.builder().id(1L).build();
+        TaskStepExecutionReport stored = TaskStepExecutionReport.builder()
+                .id(1L).status(Status.RUNNING).startDateTime(LocalDateTime.now().minusMinutes(1))
+                .taskExecutionId(taskExecutionReport).build();
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(ServiceResult.ok(taskExecutionReport));
+        when(taskStepExecutionReportRepo.findOwnedStepReport(1L, 1L, 1L)).thenReturn(Optional.of(stored));
+
+        ServiceResult<TaskStepExecutionReport> futureEnd = taskStepExecutionReportServiceImpl.updateTaskStepExecutionReport(1L, 1L, 1L,
+                TaskStepExecutionReport.builder().status(Status.SUCCESS).endDateTime(LocalDateTime.now().plusDays(1)).build());
+        ServiceResult<TaskStepExecutionReport> skewedEnd = taskStepExecutionReportServiceImpl.updateTaskStepExecutionReport(1L, 1L, 1L,
+                TaskStepExecutionReport.builder().status(Status.SUCCESS).endDateTime(LocalDateTime.now().plusSeconds(1)).build());
+
+        assertEquals(ServiceResult.Outcome.INVALID, futureEnd.getOutcome());
+        assertTrue(futureEnd.getMessage().endsWith(" is in the future."));
+        assertEquals(ServiceResult.Outcome.OK, skewedEnd.getOutcome());     // Within client-timestamps.max-skew.
+        verify(taskStepExecutionReportRepo, times(1)).save(any());
+        assertEquals(Status.RUNNING, stored.getStatus());
+    }
 
-        assertThrows(NoSuchTaskReportException.class, ()->taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(1L, 1L, 1L));
+    @Test
+    @DisplayName("Test the delete method reports a missing Task")
+    void deleteTaskStepExecutionReportTaskNotFound() {
+
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(
+                ServiceResult.notFound("Non-existent taskId passed."));
+
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(1L, 1L, 1L);
+
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, result.getOutcome());
+        assertEquals("Non-existent taskId passed.", result.getMessage());
+    }
+
+    @Test
+    @DisplayName("Test the delete method reports a missing TaskReport")
+    void deleteTaskStepExecutionReportTaskReportNotFound() {
+
+        when(taskExecutionReportServiceImpl.resolveTaskReportForUpdate(1L, 1L)).thenReturn(
+                ServiceResult.notFound("Non-existent taskReportId passed for Task with id 1"));
+
+        ServiceResult<TaskStepExecutionReport> result = taskStepExecutionReportServiceImpl.deleteTaskStepExecutionReport(1L, 1L, 1L);
+
+        assertEquals(ServiceResult.Outcome.NOT_FOUND, result.getOutcome());
+        assertEquals("Non-existent taskReportId passed for Task with id 1", result.getMessage());
     }
 
     @Test
@@ -202,6 +363,23 @@ class TaskStepExecutionReportServiceImplTest {
 
         assertNull(taskStepExecutionReport1.getEndDateTime());
         assertNull(taskStepExecutionReport1.getExecutionTimeSeconds());
+        assertNull(taskStepExecutionReport1.getExecutionTimeMicros());
+    }
+
+    @Test
+    @DisplayName("Testing a sub-second StepReport keeps its duration in microseconds.")
+    void checkForSuccessSubSecond() {
+
+        TaskStepExecutionReport taskStepExecutionReport = TaskStepExecutionReport.builder()
+                .startDateTime(LocalDateTime.now(MonotonicClock.INSTANCE).minusNanos(250_000_000))
+                .status(Status.SUCCESS)
+                .build();
+
+        taskStepExecutionReportServiceImpl.checkForSuccess(taskStepExecutionReport);
+
+        assertEquals(0L, taskStepExecutionReport.getExecutionTimeSeconds());
+        assertTrue(taskStepExecutionReport.getExecutionTimeMicros() >= 250_000);
+        assertTrue(taskStepExecutionReport.getExecutionTimeMicros() < 1_000_000);
     }
 
     @Test
@@ -222,7 +400,7 @@ class TaskStepExecutionReportServiceImplTest {
         when(taskExecutionReportService.findTaskReportById(any())).thenReturn(Optional.of(taskExecutionReport));
 
         List<TaskStepExecutionReport> taskStepExecutionReportList = taskStepExecutionReportServiceImpl
-                .getAllTaskStepExecutionReportsSortedByStartDateTime(1L);
+                .getAllTaskStepExecutionReportsSortedByStartDateTime(1L).getValue();
 
         for (int i = 0; i < taskStepExecutionReportList.size() - 1; i++) {
             int diff = taskStepExecutionReportList.get(i).getStartDateTime().compareTo(taskStepExecutionReportList.get(i + 1).getStartDateTime());
@@ -249,7 +427,7 @@ class TaskStepExecutionReportServiceImplTest {
         when(taskExecutionReportService.findTaskReportById(any())).thenReturn(Optional.of(taskExecutionReport));
 
         List<TaskStepExecutionReport> taskStepExecutionReportList = taskStepExecutionReportServiceImpl
-                .getAllTaskStepExecutionReportsSortedByExeTime(1L);
+                .getAllTaskStepExecutionReportsSortedByExeTime(1L).getValue();
 
         for (int i = 0; i < taskStepExecutionReportList.size() - 1; i++) {
             assertTrue(taskStepExecutionReportList.get(i).getExecutionTimeSeconds() <
@@ -275,8 +453,32 @@ class TaskStepExecutionReportServiceImplTest {
         when(taskExecutionReportService.findTaskReportById(any())).thenReturn(Optional.of(taskExecutionReport));
 
         List<TaskStepExecutionReport> taskStepExecutionReportList = taskStepExecutionReportServiceImpl
-                .getAllTaskStepExecutionReportGivenTaskExecutionReport(1L);
+                .getAllTaskStepExecutionReportGivenTaskExecutionReport(1L).getValue();
 
         assertEquals(4, taskStepExecutionReportList.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Exporting StepReports writes one JSON line per row and detaches each row.")
+    void exportTaskStepExecutionReports() throws Exception {
+
+        TaskStepExecutionReport first = TaskStepExecutionReport.builder()
+                .id(1L).stepName("step1").status(Status.SUCCESS).executionTimeSeconds(3L).build();
+        TaskStepExecutionReport second = TaskStepExecutionReport.builder()
+                .id(2L).stepName("step2").status(Status.SUCCESS).executionTimeSeconds(5L).build();
+        LocalDateTime from = LocalDateTime.of(2023, 5, 9, 0, 0);
+
+        when(taskStepExecutionReportRepo.streamAllForExport(eq(Status.SUCCESS), eq(from), isNull()))
+                .thenReturn(Stream.of(first, second));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        taskStepExecutionReportServiceImpl.exportTaskStepExecutionReports(Status.SUCCESS, from, null, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("step2", objectMapper.readTree(lines[1]).get("stepName").asText());
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+    }
+}